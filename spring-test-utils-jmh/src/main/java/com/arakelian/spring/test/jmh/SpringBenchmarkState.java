@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.jmh;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestContextManager;
+
+import com.arakelian.spring.test.ImprovedActiveProfilesResolver;
+import com.arakelian.spring.test.Log4jTestConfiguration;
+
+/**
+ * Base class for JMH state classes that need beans from a Spring test context.
+ *
+ * <p>
+ * The context is bootstrapped exactly like {@link com.arakelian.spring.test.AbstractSpringTest}:
+ * the same active profiles resolver and Log4J test configuration are used, and subclasses can
+ * declare <code>@ContextConfiguration</code> (or <code>@SpringBootTest</code>) and
+ * <code>@Autowired</code> fields as they would in a test. The context is loaded once per trial
+ * and, because it is held by Spring's context cache, reused by every trial in the same fork.
+ * </p>
+ *
+ * <pre>
+ * &#64;ContextConfiguration(classes = ServiceConfig.class)
+ * public class ServiceState extends SpringBenchmarkState {
+ *     &#64;Autowired
+ *     public Service service;
+ * }
+ *
+ * &#64;Benchmark
+ * public Object lookup(final ServiceState state) {
+ *     return state.service.lookup("key");
+ * }
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@ActiveProfiles(resolver = ImprovedActiveProfilesResolver.class, profiles = { "test" })
+public abstract class SpringBenchmarkState {
+    private TestContextManager testContextManager;
+
+    public final ApplicationContext getApplicationContext() {
+        return testContextManager.getTestContext().getApplicationContext();
+    }
+
+    /**
+     * Loads the Spring context, if not already cached, and injects dependencies into this
+     * instance.
+     *
+     * @throws Exception
+     *             if the context cannot be loaded or this instance cannot be prepared
+     */
+    @Setup(Level.Trial)
+    public final void setUpSpringContext() throws Exception {
+        Log4jTestConfiguration.initialize();
+        testContextManager = new TestContextManager(getClass());
+        testContextManager.beforeTestClass();
+        testContextManager.prepareTestInstance(this);
+    }
+
+    /**
+     * Runs Spring's after class callbacks, such as closing a context marked dirty.
+     *
+     * @throws Exception
+     *             if a callback fails
+     */
+    @TearDown(Level.Trial)
+    public final void tearDownSpringContext() throws Exception {
+        if (testContextManager != null) {
+            testContextManager.afterTestClass();
+            testContextManager = null;
+        }
+    }
+}
@@ -17,46 +17,203 @@
 
 package com.arakelian.spring.test;
 
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
 import javax.servlet.ServletContext;
 
 import org.junit.Before;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.context.embedded.LocalServerPort;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+
+import com.arakelian.spring.test.annotation.WithTransport;
+import com.arakelian.spring.test.perf.LoadDriver;
+import com.arakelian.spring.test.perf.LoadResult;
+import com.arakelian.spring.test.web.HttpConnectionPoolStats;
+import com.arakelian.spring.test.web.MockMvcTransportFilter;
+import com.arakelian.spring.test.web.PooledHttpClient;
+import com.arakelian.spring.test.web.StreamingRequest;
+import com.arakelian.spring.test.web.Transport;
+import com.arakelian.spring.test.web.TransportTimingFilter;
+import com.google.common.base.Preconditions;
 
 import io.restassured.RestAssured;
-import io.restassured.config.LogConfig;
+import io.restassured.config.RestAssuredConfig;
 import io.restassured.specification.RequestSpecification;
 
+/**
+ * Base class for tests of Spring Boot web applications.
+ *
+ * <p>
+ * Requests created by {@link #newRequest()} are sent over a socket to the embedded server by
+ * default. Annotate the test class with {@link WithTransport} or set the
+ * {@value com.arakelian.spring.test.web.Transport#TRANSPORT_PROPERTY} system property to dispatch
+ * them in-process through MockMvc instead; see {@link Transport}.
+ * </p>
+ */
 public abstract class AbstractSpringBootTest extends AbstractSpringTest {
-    @LocalServerPort
+    /** Configuration last installed by {@link #configureRestAssured()} **/
+    private static volatile RestAssuredConfig configured;
+
+    /** Server port that {@link #configured} sends requests to **/
+    private static volatile int configuredPort;
+
+    /** Configuration that {@link #configured} was derived from **/
+    private static volatile RestAssuredConfig configuredFrom;
+
+    /** Contexts whose pooled HTTP client is shut down when they close; guarded by itself **/
+    private static final Set<ApplicationContext> POOLED_CONTEXTS = Collections
+            .newSetFromMap(new WeakHashMap<ApplicationContext, Boolean>());
+
+    /**
+     * Returns the given RestAssured configuration with validation failures logged and, when a
+     * server is running, requests sent through the pooled keep-alive client for its port. Any
+     * other customization of the given configuration is preserved.
+     *
+     * @param config
+     *            current RestAssured configuration
+     * @param port
+     *            port of the embedded server, or zero
+     * @return derived RestAssured configuration
+     */
+    private static RestAssuredConfig deriveRestAssuredConfig(final RestAssuredConfig config, final int port) {
+        // tell RestAssured to log everything
+        RestAssuredConfig derived = config
+                .logConfig(config.getLogConfig().enableLoggingOfRequestAndResponseIfValidationFails());
+
+        // share a pool of keep-alive connections to the server
+        if (port != 0) {
+            derived = derived.httpClient(PooledHttpClient.forPort(port).configure(config.getHttpClientConfig()));
+        }
+        return derived;
+    }
+
+    /**
+     * Shuts down the pooled HTTP client of the given port when the given context closes, since
+     * the server that it connects to stops with the context. The RestAssured configuration that
+     * uses the client is reverted, so that the next context on the same port configures a new
+     * one.
+     *
+     * @param context
+     *            application context that runs the embedded server
+     * @param port
+     *            port of the embedded server
+     */
+    private static void shutdownPooledClientOnClose(final ApplicationContext context, final int port) {
+        if (!(context instanceof ConfigurableApplicationContext)) {
+            return;
+        }
+        synchronized (POOLED_CONTEXTS) {
+            if (!POOLED_CONTEXTS.add(context)) {
+                return;
+            }
+        }
+        final ConfigurableApplicationContext configurable = (ConfigurableApplicationContext) context;
+        configurable.addApplicationListener(new ApplicationListener<ContextClosedEvent>() {
+            @Override
+            public void onApplicationEvent(final ContextClosedEvent event) {
+                // events of child contexts are also published to their parents
+                if (event.getApplicationContext() == context) {
+                    PooledHttpClient.shutdown(port);
+                    revertRestAssuredConfig(port);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reverts the RestAssured configuration installed for the given port, whose pooled client was
+     * shut down.
+     *
+     * @param port
+     *            port of the embedded server
+     */
+    private static synchronized void revertRestAssuredConfig(final int port) {
+        final RestAssuredConfig config = configured;
+        if (config == null || configuredPort != port) {
+            return;
+        }
+        if (RestAssured.config() == config) {
+            RestAssured.config = configuredFrom;
+        }
+        configured = null;
+        configuredFrom = null;
+        configuredPort = 0;
+    }
+
+    /** Port of the embedded server, or zero when no server is running **/
+    @Value("${local.server.port:0}")
     protected int port;
 
     @Autowired
     private ServletContext servletContext;
 
+    /** How requests are sent to the application **/
+    private Transport transport;
+
     /**
      * The method is invoked by JUnit before each test is executed; here, we configure RestAssured
      * wit the port that Spring MVC is listening on.
      */
     @Before
     public final void configureRestAssured() {
+        transport = Transport.resolve(getClass());
+
         // make sure RestAssured knows which port the app is listening on
-        RestAssured.port = port;
+        if (port != 0) {
+            RestAssured.port = port;
+        }
 
-        // tell RestAssured to log everything
-        RestAssured.config = RestAssured.config()
-                .logConfig(new LogConfig().enableLoggingOfRequestAndResponseIfValidationFails());
+        // derive from the current configuration, so that customizations made by tests are kept;
+        // nothing to do if it is still the one we installed
+        synchronized (AbstractSpringBootTest.class) {
+            final RestAssuredConfig current = RestAssured.config();
+            if (current != configured || port != configuredPort) {
+                final RestAssuredConfig config = deriveRestAssuredConfig(current, port);
+                RestAssured.config = config;
+                configuredFrom = current;
+                configuredPort = port;
+                configured = config;
+            }
+        }
+        if (port != 0) {
+            shutdownPooledClientOnClose(getApplicationContext(), port);
+        }
+    }
+
+    /**
+     * Returns statistics for the pool of keep-alive connections to the embedded server.
+     *
+     * @return statistics for the pool of keep-alive connections to the embedded server
+     */
+    public final HttpConnectionPoolStats getConnectionPoolStats() {
+        Preconditions.checkState(port != 0, "No server is running");
+        return PooledHttpClient.forPort(port).getStats();
     }
 
     public final ServletContext getServletContext() {
         return servletContext;
     }
 
+    public final Transport getTransport() {
+        return transport;
+    }
+
     protected final String buildUrl(final String... pieces) {
         final StringBuilder buf = new StringBuilder() //
                 .append("http://") //
-                .append("localhost").append(':').append(port) //
-                .append(servletContext.getContextPath());
+                .append("localhost");
+        if (port != 0) {
+            buf.append(':').append(port);
+        }
+        buf.append(servletContext.getContextPath());
         for (int i = 0, size = pieces != null ? pieces.length : 0; i < size; i++) {
             buf.append(pieces[i]);
         }
@@ -71,6 +228,49 @@ public abstract class AbstractSpringBootTest extends AbstractSpringTest {
      */
     protected RequestSpecification newRequest() {
         // this method will allow us to configure logging or filtering for all tests in the future
-        return RestAssured.given();
+        final RequestSpecification request = RestAssured.given() //
+                .filter(new TransportTimingFilter(transport));
+        if (transport == Transport.MOCK_MVC) {
+            request.filter(MockMvcTransportFilter.forContext(getApplicationContext()));
+        }
+        return request;
+    }
+
+    /**
+     * Creates a request to the embedded server whose response body is validated while it is read,
+     * rather than buffered in memory as with {@link #newRequest()}. Use it for large responses,
+     * e.g. exports.
+     *
+     * @param pieces
+     *            pieces of the URL path, appended to the context path
+     * @return new streaming request
+     */
+    protected final StreamingRequest newStreamingRequest(final String... pieces) {
+        Preconditions.checkState(port != 0, "Streaming requests require a running server");
+        return PooledHttpClient.forPort(port).newStreamingRequest(buildUrl(pieces));
+    }
+
+    /**
+     * Sends requests concurrently using the given driver and reports their latency distribution.
+     * Each operation receives a {@link #newRequest() new request} and is expected to send it, e.g.
+     * <code>request -&gt; request.get(buildUrl("/ping")).then().statusCode(200)</code>.
+     *
+     * @param driver
+     *            load driver, configured with the number of clients and duration
+     * @param operation
+     *            sends a single request
+     * @return result of the run
+     * @throws InterruptedException
+     *             if the current thread is interrupted while waiting for the run to complete
+     */
+    protected final LoadResult runLoad(
+            final LoadDriver driver,
+            final Function<RequestSpecification, ?> operation) throws InterruptedException {
+        return driver.run(new Callable<Object>() {
+            @Override
+            public Object call() {
+                return operation.apply(newRequest());
+            }
+        });
     }
 }
@@ -17,26 +17,32 @@
 
 package com.arakelian.spring.test;
 
-import java.io.IOException;
-import java.lang.reflect.Method;
-import java.net.URI;
+import java.io.Reader;
+import java.lang.reflect.Type;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Rule;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
 import org.springframework.core.env.Environment;
 import org.springframework.test.context.ActiveProfiles;
 
+import com.arakelian.spring.test.annotation.SwappableBeans;
+import com.arakelian.spring.test.context.SwappableBeanRegistry;
+import com.arakelian.spring.test.resource.FixtureCache;
+import com.arakelian.spring.test.resource.FixtureMode;
+import com.arakelian.spring.test.resource.ResourceCache;
+import com.arakelian.spring.test.resource.ResourceCacheStats;
 import com.arakelian.spring.test.rule.OrderedRules;
 import com.arakelian.spring.test.rule.SpringClassRule;
 import com.arakelian.spring.test.rule.SpringMethodRule;
 import com.google.common.base.CaseFormat;
-import com.google.common.base.Charsets;
-import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Sets;
 import com.google.common.io.Resources;
@@ -54,12 +60,6 @@ public abstract class AbstractSpringTest {
     /** Must have this field exposed for SpringMethodRule **/
     public static final SpringClassRule SPRING_CLASS_RULE = ORDERED_RULES.add(new SpringClassRule(), 100);
 
-    /** Log4J2 configuration file **/
-    private static final String LOG4J_CONFIG_UNIT_TESTS = "log4j2-test.xml";
-
-    /** Log4J configuration class **/
-    private static final String LOG4J_CONFIGURATOR_CLASS = "org.apache.logging.log4j.core.config.Configurator";
-
     /**
      * Reads a resource file into a String. The resource file is assumed to be the simple name of
      * this class, concatenated with a user given suffix.
@@ -71,11 +71,20 @@ public abstract class AbstractSpringTest {
      * @return resource file as String
      */
     public static String getClassResourceAsString(final String suffix, final Class<?> clazz) {
-        final String base = CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, clazz.getSimpleName());
-        final String name = base + suffix;
+        final String name = getClassResourceName(suffix, clazz);
         return getResourceAsString(name, clazz, true);
     }
 
+    /**
+     * Returns statistics for the cache of fixtures parsed by
+     * {@link #getFixture(String, Type, FixtureMode)}. Requires Jackson.
+     *
+     * @return statistics for the cache of fixtures
+     */
+    public static ResourceCacheStats getFixtureCacheStats() {
+        return FixtureCache.getDefault().getStats();
+    }
+
     /**
      * Reads the resource file with the given name and returns it as a String.
      *
@@ -91,21 +100,46 @@ public abstract class AbstractSpringTest {
             final String name,
             final Class<?> contextClass,
             final boolean required) {
+        final URL url = getResource(name, contextClass, required);
+        return url != null ? ResourceCache.getDefault().getString(url) : null;
+    }
+
+    /**
+     * Returns statistics for the cache of resources read by
+     * {@link #getResourceAsString(String, Class, boolean)}.
+     *
+     * @return statistics for the cache of resources
+     */
+    public static ResourceCacheStats getResourceCacheStats() {
+        return ResourceCache.getDefault().getStats();
+    }
+
+    private static String getClassResourceName(final String suffix, final Class<?> clazz) {
+        final String base = CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, clazz.getSimpleName());
+        return base + suffix;
+    }
+
+    /**
+     * Returns the URL of the resource file with the given name.
+     *
+     * @param name
+     *            resource name, assumed to be relative to given class
+     * @param contextClass
+     *            context class for resource loading
+     * @param required
+     *            true if resource must be found
+     * @return URL of resource file, or null if not found and not required
+     */
+    private static URL getResource(final String name, final Class<?> contextClass, final boolean required) {
         Preconditions.checkArgument(!StringUtils.isEmpty(name), "name must be non-empty");
         Preconditions.checkArgument(contextClass != null, "contextClass must be non-null");
-        URL url = null;
         try {
-            url = Resources.getResource(contextClass, name);
+            return Resources.getResource(contextClass, name);
         } catch (final IllegalArgumentException e) {
             if (required) {
                 throw e;
             }
-        }
-        try {
-            final String text = Resources.toString(url, Charsets.UTF_8);
-            return text;
-        } catch (final IOException e) {
-            throw new IllegalStateException("Cannot find resource: \"" + name + "\"", e);
+            return null;
         }
     }
 
@@ -117,6 +151,9 @@ public abstract class AbstractSpringTest {
     @Rule
     public final SpringMethodRule springMethodRule = new SpringMethodRule();
 
+    @Autowired
+    private ApplicationContext applicationContext;
+
     @Autowired
     private Environment environment;
 
@@ -124,29 +161,7 @@ public abstract class AbstractSpringTest {
     private Set<String> activeProfiles;
 
     public AbstractSpringTest() {
-        final ClassLoader loader = MoreObjects.firstNonNull( //
-                Thread.currentThread().getContextClassLoader(), //
-                Resources.class.getClassLoader());
-
-        final URL url = loader.getResource(LOG4J_CONFIG_UNIT_TESTS);
-        if (url != null) {
-            Class<?> clazz;
-            try {
-                clazz = Class.forName(LOG4J_CONFIGURATOR_CLASS);
-            } catch (final ClassNotFoundException e1) {
-                // LOG4J not available
-                return;
-            }
-
-            try {
-                // equivalent to Configurator.initialize(null, loader, url.toURI());
-                final Method method = clazz
-                        .getMethod("initialize", String.class, ClassLoader.class, URI.class);
-                method.invoke(null, null, loader, url.toURI());
-            } catch (final Exception e) {
-                throw new RuntimeException("Unable to initialize Log4J", e);
-            }
-        }
+        Log4jTestConfiguration.initialize();
     }
 
     /**
@@ -157,14 +172,47 @@ public abstract class AbstractSpringTest {
         activeProfiles = Sets.newHashSet(getEnvironment().getActiveProfiles());
     }
 
+    /**
+     * Returns the bean of the given type as it was before being swapped.
+     *
+     * @param <T>
+     *            bean type
+     * @param type
+     *            bean type, listed in {@link SwappableBeans}
+     * @return original bean
+     */
+    public final <T> T getOriginalBean(final Class<T> type) {
+        return getSwappableBeanRegistry().getOriginal(type);
+    }
+
     public final Set<String> getActiveProfiles() {
         return activeProfiles;
     }
 
+    public final ApplicationContext getApplicationContext() {
+        return applicationContext;
+    }
+
     public final Environment getEnvironment() {
         return environment;
     }
 
+    /**
+     * Replaces the bean of the given type, in the shared application context, until the end of the
+     * current test method. The bean must be listed in {@link SwappableBeans}.
+     *
+     * @param <T>
+     *            bean type
+     * @param type
+     *            bean type, listed in {@link SwappableBeans}
+     * @param replacement
+     *            replacement, such as a mock or a spy of {@link #getOriginalBean(Class)}
+     * @return the bean that was replaced
+     */
+    public final <T> T swapBean(final Class<T> type, final T replacement) {
+        return getSwappableBeanRegistry().swap(type, replacement);
+    }
+
     /**
      * Reads a resource file into a String. The resource file is assumed to be the simple name of
      * this class, concatenated with a user given suffix.
@@ -178,6 +226,63 @@ public abstract class AbstractSpringTest {
         return getClassResourceAsString(suffix, clazz);
     }
 
+    /**
+     * Parses a fixture whose name is the simple name of this class, concatenated with a user given
+     * suffix, and returns the cached instance, which must not be modified.
+     *
+     * @param <T>
+     *            fixture type
+     * @param suffix
+     *            suffix to add to the simple class name
+     * @param type
+     *            fixture type
+     * @return parsed fixture
+     * @see #getFixture(String, Type, FixtureMode)
+     */
+    protected final <T> T getClassFixture(final String suffix, final Class<T> type) {
+        return getFixture(getClassResourceName(suffix, this.getClass()), type, FixtureMode.SHARED);
+    }
+
+    /**
+     * Parses the fixture with the given name and returns the cached instance, which must not be
+     * modified.
+     *
+     * @param <T>
+     *            fixture type
+     * @param name
+     *            resource name, assumed to be relative to current class
+     * @param type
+     *            fixture type
+     * @return parsed fixture
+     * @see #getFixture(String, Type, FixtureMode)
+     */
+    protected final <T> T getFixture(final String name, final Class<T> type) {
+        return getFixture(name, type, FixtureMode.SHARED);
+    }
+
+    /**
+     * Parses the fixture with the given name using the application context's
+     * <code>ObjectMapper</code>. The fixture is parsed once and shared by all tests in the JVM;
+     * see {@link FixtureCache}. Requires Jackson.
+     *
+     * @param <T>
+     *            fixture type
+     * @param name
+     *            resource name, assumed to be relative to current class
+     * @param type
+     *            fixture type, which may be generic, e.g.
+     *            <code>new TypeReference&lt;List&lt;Item&gt;&gt;() {}.getType()</code>
+     * @param mode
+     *            whether to return the cached instance, a read-only view or a copy
+     * @return parsed fixture
+     */
+    @SuppressWarnings("unchecked")
+    protected final <T> T getFixture(final String name, final Type type, final FixtureMode mode) {
+        final Class<?> clazz = this.getClass();
+        final URL url = getResource(name, clazz, true);
+        return (T) FixtureCache.getDefault().get(applicationContext, url, type, clazz.getClassLoader(), mode);
+    }
+
     /**
      * Reads the resource file with the given name and returns it as a String.
      *
@@ -191,4 +296,49 @@ public abstract class AbstractSpringTest {
         final Class<?> clazz = this.getClass();
         return getResourceAsString(name, clazz, required);
     }
+
+    /**
+     * Returns the resource file with the given name as a read-only byte buffer. Resource files in
+     * a directory are memory-mapped rather than copied onto the heap.
+     *
+     * @param name
+     *            resource name, assumed to be relative to current class
+     * @return read-only byte buffer with the contents of the resource file
+     */
+    protected final ByteBuffer getResourceAsByteBuffer(final String name) {
+        return ResourceCache.getDefault().getByteBuffer(getResource(name, this.getClass(), true));
+    }
+
+    /**
+     * Returns a reader for the resource file with the given name. The resource file is streamed
+     * unless it is already cached.
+     *
+     * @param name
+     *            resource name, assumed to be relative to current class
+     * @return reader for the resource file, which must be closed after use
+     */
+    protected final Reader getResourceAsReader(final String name) {
+        return ResourceCache.getDefault().getReader(getResource(name, this.getClass(), true));
+    }
+
+    /**
+     * Returns a stream of the lines of the resource file with the given name. The resource file
+     * is streamed unless it is already cached.
+     *
+     * @param name
+     *            resource name, assumed to be relative to current class
+     * @return stream of lines, which must be closed after use
+     */
+    protected final Stream<String> getResourceLines(final String name) {
+        return ResourceCache.getDefault().getLines(getResource(name, this.getClass(), true));
+    }
+
+    private SwappableBeanRegistry getSwappableBeanRegistry() {
+        final SwappableBeanRegistry registry = SwappableBeanRegistry.forContext(applicationContext);
+        Preconditions.checkState(
+                registry != null,
+                "%s must be annotated with @SwappableBeans",
+                getClass().getName());
+        return registry;
+    }
 }
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.runner.Runner;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.Suite;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.context.cache.ContextCache;
+
+import com.arakelian.spring.test.context.ContextCaches;
+import com.arakelian.spring.test.context.ContextOrdering;
+import com.arakelian.spring.test.context.ContextPrewarmer;
+import com.arakelian.spring.test.context.ContextSharding;
+
+/**
+ * Drop-in replacement for JUnit's {@link Suite} that runs the classes listed in
+ * {@link org.junit.runners.Suite.SuiteClasses} grouped by the Spring
+ * {@link org.springframework.context.ApplicationContext} that they share.
+ *
+ * <p>
+ * Works with test classes that use {@link RunListenerSpringJUnit4ClassRunner} or
+ * {@link com.arakelian.spring.test.rule.SpringClassRule}. Classes are grouped by their
+ * {@link org.springframework.test.context.MergedContextConfiguration}, so each context is loaded
+ * once and can be evicted once its group has finished.
+ * </p>
+ *
+ * <p>
+ * When the first class of a group starts, the context of the next group is loaded in the
+ * background by the {@link ContextPrewarmer}, so it is ready by the time that group starts.
+ * </p>
+ *
+ * <p>
+ * When the {@value com.arakelian.spring.test.context.ContextSharding#SHARD_COUNT_PROPERTY} and
+ * {@value com.arakelian.spring.test.context.ContextSharding#SHARD_INDEX_PROPERTY} system properties
+ * are set, for example by running one test task per shard, only the classes that
+ * {@link ContextSharding} assigns to the given shard are run.
+ * </p>
+ */
+public class ContextOrderedSuite extends Suite {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContextOrderedSuite.class);
+
+    private final List<Runner> orderedRunners;
+
+    private final ContextOrdering ordering;
+
+    /** Test class to pre-warm, keyed by the runner that starts each context group **/
+    private final Map<Runner, Class<?>> nextTestClass = new IdentityHashMap<>();
+
+    /**
+     * Called reflectively on classes annotated with <code>@RunWith(ContextOrderedSuite.class)</code>
+     *
+     * @param klass
+     *            the root class
+     * @param builder
+     *            builds runners for classes in the suite
+     * @throws InitializationError
+     *             if the suite cannot be constructed
+     */
+    public ContextOrderedSuite(final Class<?> klass, final RunnerBuilder builder) throws InitializationError {
+        super(klass, builder);
+
+        // nested suites have no context of their own, so they are kept in place at the end
+        final List<Runner> runners = super.getChildren();
+        final Map<Class<?>, List<Runner>> byClass = new IdentityHashMap<>();
+        final List<Class<?>> testClasses = new ArrayList<>();
+        final List<Runner> unordered = new ArrayList<>();
+        for (final Runner runner : runners) {
+            final Class<?> testClass = runner.getDescription().getTestClass();
+            if (testClass == null || runner instanceof Suite) {
+                unordered.add(runner);
+                continue;
+            }
+            List<Runner> list = byClass.get(testClass);
+            if (list == null) {
+                list = new ArrayList<>();
+                byClass.put(testClass, list);
+                testClasses.add(testClass);
+            }
+            list.add(runner);
+        }
+
+        // when sharded, only run the classes assigned to this shard
+        final int shardCount = ContextSharding.getConfiguredShardCount();
+        if (shardCount > 1) {
+            final ContextSharding sharding = ContextSharding.of(testClasses);
+            final int shardIndex = ContextSharding.getConfiguredShardIndex();
+            testClasses.retainAll(sharding.getShard(shardIndex));
+            if (shardIndex != 0) {
+                unordered.clear();
+            }
+            LOGGER.info(
+                    "Running shard {} of {} with {} test classes and {} contexts (~{}ms); {}",
+                    Integer.valueOf(shardIndex),
+                    Integer.valueOf(shardCount),
+                    Integer.valueOf(testClasses.size()),
+                    Integer.valueOf(sharding.getShardContexts(shardIndex)),
+                    Long.valueOf(sharding.getEstimatedMillis(shardIndex)),
+                    sharding);
+        }
+
+        ordering = ContextOrdering.of(testClasses);
+        final List<Runner> ordered = new ArrayList<>(testClasses.size() + unordered.size());
+        for (final Class<?> testClass : ordering.getOrderedClasses()) {
+            ordered.addAll(byClass.get(testClass));
+        }
+        ordered.addAll(unordered);
+        orderedRunners = Collections.unmodifiableList(ordered);
+
+        // when a group starts, the first class of the following group is pre-warmed
+        final List<List<Class<?>>> groups = ordering.getGroups();
+        for (int i = 0, size = groups.size(); i < size - 1; i++) {
+            final Runner first = byClass.get(groups.get(i).get(0)).get(0);
+            nextTestClass.put(first, groups.get(i + 1).get(0));
+        }
+
+        LOGGER.info(
+                "Ordered {} test classes into {} context groups; estimated context loads {} -> {} ({} avoided)",
+                Integer.valueOf(testClasses.size()),
+                Integer.valueOf(ordering.getGroups().size()),
+                Integer.valueOf(ordering.getOriginalContextLoads()),
+                Integer.valueOf(ordering.getOrderedContextLoads()),
+                Integer.valueOf(ordering.getContextLoadsAvoided()));
+    }
+
+    public final ContextOrdering getOrdering() {
+        return ordering;
+    }
+
+    @Override
+    public void run(final RunNotifier notifier) {
+        final ContextCache contextCache = ContextCaches.getDefaultContextCache();
+        final ContextPrewarmer prewarmer = ContextPrewarmer.getDefault();
+        final int missesBefore = contextCache.getMissCount();
+        final int prewarmedBefore = prewarmer.getPrewarmedCount();
+        try {
+            super.run(notifier);
+        } finally {
+            final int prewarmed = prewarmer.getPrewarmedCount() - prewarmedBefore;
+            final int loads = contextCache.getMissCount() - missesBefore + prewarmed;
+            LOGGER.info(
+                    "Loaded {} contexts for {} test classes ({} loads estimated without context ordering)",
+                    Integer.valueOf(loads),
+                    Integer.valueOf(ordering.getOrderedClasses().size()),
+                    Integer.valueOf(ordering.getOriginalContextLoads()));
+            LOGGER.info(
+                    "Pre-warmed {} contexts in the background ({} skipped, at most {} at a time)",
+                    Integer.valueOf(prewarmed),
+                    Integer.valueOf(prewarmer.getSkippedCount()),
+                    Integer.valueOf(prewarmer.getMaxConcurrent()));
+        }
+    }
+
+    @Override
+    protected List<Runner> getChildren() {
+        return orderedRunners;
+    }
+
+    @Override
+    protected void runChild(final Runner runner, final RunNotifier notifier) {
+        final Class<?> next = nextTestClass.get(runner);
+        if (next != null) {
+            ContextPrewarmer.getDefault().prewarm(next);
+        }
+        super.runChild(runner, notifier);
+    }
+}
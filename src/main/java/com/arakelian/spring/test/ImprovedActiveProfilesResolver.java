@@ -19,7 +19,14 @@ package com.arakelian.spring.test;
 
 import static org.springframework.test.util.MetaAnnotationUtils.findAnnotationDescriptor;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -31,54 +38,185 @@ import org.springframework.util.Assert;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 
+/**
+ * Resolves active profiles by merging the <code>spring.profiles.active</code> environment
+ * variable, the <code>spring.profiles.active</code> system property and {@link ActiveProfiles}
+ * annotations, in that order.
+ *
+ * <p>
+ * Results are memoized per test class. Profile order normally follows the order above, which means
+ * that <code>{cloud,test}</code> and <code>{test,cloud}</code> produce different context cache keys.
+ * Setting the {@value #CANONICAL_PROFILES_PROPERTY} system property to <code>true</code> sorts
+ * profiles instead, so that equivalent profile sets share a cached context. This is opt-in because
+ * profile order determines the precedence of profile-specific property sources.
+ * </p>
+ */
 public class ImprovedActiveProfilesResolver implements ActiveProfilesResolver {
+    /** Memoized resolution for a single test class **/
+    private static final class Resolution {
+        private final String sysProfiles;
+        private final boolean canonical;
+        private final String[] profiles;
+
+        private Resolution(final String sysProfiles, final boolean canonical, final String[] profiles) {
+            this.sysProfiles = sysProfiles;
+            this.canonical = canonical;
+            this.profiles = profiles;
+        }
+
+        private boolean isCurrent(final String currentSysProfiles, final boolean currentCanonical) {
+            return canonical == currentCanonical && StringUtils.equals(sysProfiles, currentSysProfiles);
+        }
+    }
+
+    /** System property which enables sorting of active profiles **/
+    public static final String CANONICAL_PROFILES_PROPERTY = "spring.profiles.canonical";
+
     /** Logger **/
     private static final Logger LOGGER = LoggerFactory.getLogger(ImprovedActiveProfilesResolver.class);
 
     /** Comma-separated string splitter **/
     private static final Splitter COMMA_SPLITTER = Splitter.on(",").trimResults().omitEmptyStrings();
 
-    @Override
-    public String[] resolve(final Class<?> testClass) {
-        Assert.notNull(testClass, "Class must not be null");
+    /** Environment does not change while the JVM is running, so we only split it once **/
+    private static final List<String> ENV_PROFILES = splitProfiles(
+            "environment",
+            System.getenv("spring.profiles.active"));
 
-        final Set<String> activeProfiles = Sets.newLinkedHashSet();
+    /** Resolved profiles, keyed by test class **/
+    private static final Map<Class<?>, Resolution> RESOLUTIONS = new ConcurrentHashMap<>();
 
-        // load environment profile
-        final String envProfiles = System.getenv("spring.profiles.active");
-        if (!StringUtils.isEmpty(envProfiles)) {
-            LOGGER.trace("Active profiles in environment properties: {}", envProfiles);
-            activeProfiles.addAll(COMMA_SPLITTER.splitToList(envProfiles));
+    /** Profiles declared with @ActiveProfiles, keyed by test class **/
+    private static final Map<Class<?>, List<String>> ANNOTATION_PROFILES = new ConcurrentHashMap<>();
+
+    /** Original profile orders and test classes, keyed by canonical profile order; guarded by itself **/
+    private static final Map<List<String>, Map<List<String>, Set<Class<?>>>> CANONICAL_ORIGINS = new LinkedHashMap<>();
+
+    /**
+     * Returns the test classes whose profiles were declared in different orders but collapsed into
+     * the same canonical profile set, keyed by canonical profile set. Only populated when the
+     * {@value #CANONICAL_PROFILES_PROPERTY} system property is enabled.
+     *
+     * @return test classes whose profile sets were merged, keyed by canonical profile set
+     */
+    public static Map<List<String>, Set<Class<?>>> getMergedProfileClasses() {
+        final Map<List<String>, Set<Class<?>>> merged = new LinkedHashMap<>();
+        synchronized (CANONICAL_ORIGINS) {
+            for (final Map.Entry<List<String>, Map<List<String>, Set<Class<?>>>> entry : CANONICAL_ORIGINS
+                    .entrySet()) {
+                final Map<List<String>, Set<Class<?>>> origins = entry.getValue();
+                if (origins.size() > 1) {
+                    final Set<Class<?>> classes = new LinkedHashSet<>();
+                    for (final Set<Class<?>> each : origins.values()) {
+                        classes.addAll(each);
+                    }
+                    merged.put(entry.getKey(), Collections.unmodifiableSet(classes));
+                }
+            }
         }
+        return Collections.unmodifiableMap(merged);
+    }
 
-        // load system profiles
-        final String sysProfiles = System.getProperty("spring.profiles.active");
-        if (!StringUtils.isEmpty(sysProfiles)) {
-            LOGGER.trace("Active profiles in system properties: {}", sysProfiles);
-            activeProfiles.addAll(COMMA_SPLITTER.splitToList(sysProfiles));
+    private static List<String> getAnnotationProfiles(final Class<?> testClass) {
+        List<String> profiles = ANNOTATION_PROFILES.get(testClass);
+        if (profiles != null) {
+            return profiles;
         }
 
-        // append @ActiveProfiles annotations
+        final ImmutableList.Builder<String> builder = ImmutableList.builder();
         final AnnotationDescriptor<ActiveProfiles> descriptor = findAnnotationDescriptor(
                 testClass,
                 ActiveProfiles.class);
         if (descriptor != null) {
             final ActiveProfiles annotation = descriptor.synthesizeAnnotation();
-            final String[] profiles = annotation.profiles();
+            final String[] declared = annotation.profiles();
             LOGGER.trace(
                     "Active profiles in {} (via @ActiveProfiles): {}",
                     testClass.getSimpleName(),
-                    Joiner.on(", ").join(profiles));
-            for (final String profile : profiles) {
+                    Joiner.on(", ").join(declared));
+            for (final String profile : declared) {
                 if (!StringUtils.isEmpty(profile)) {
-                    activeProfiles.add(profile.trim());
+                    builder.add(profile.trim());
                 }
             }
         }
+        profiles = builder.build();
+        ANNOTATION_PROFILES.put(testClass, profiles);
+        return profiles;
+    }
+
+    private static boolean isCanonical() {
+        return Boolean.parseBoolean(System.getProperty(CANONICAL_PROFILES_PROPERTY));
+    }
+
+    private static void recordCanonicalOrigin(
+            final Class<?> testClass,
+            final List<String> original,
+            final List<String> canonical) {
+        synchronized (CANONICAL_ORIGINS) {
+            Map<List<String>, Set<Class<?>>> origins = CANONICAL_ORIGINS.get(canonical);
+            if (origins == null) {
+                origins = new LinkedHashMap<>();
+                CANONICAL_ORIGINS.put(canonical, origins);
+            }
+            Set<Class<?>> classes = origins.get(original);
+            if (classes == null) {
+                classes = new LinkedHashSet<>();
+                origins.put(original, classes);
+                if (origins.size() > 1) {
+                    LOGGER.debug(
+                            "Active profiles {} of test class [{}] merged into canonical profiles {}",
+                            original,
+                            testClass.getName(),
+                            canonical);
+                }
+            }
+            classes.add(testClass);
+        }
+    }
+
+    private static List<String> splitProfiles(final String source, final String profiles) {
+        if (StringUtils.isEmpty(profiles)) {
+            return Collections.emptyList();
+        }
+        LOGGER.trace("Active profiles in {} properties: {}", source, profiles);
+        return COMMA_SPLITTER.splitToList(profiles);
+    }
+
+    @Override
+    public String[] resolve(final Class<?> testClass) {
+        Assert.notNull(testClass, "Class must not be null");
+
+        final String sysProfiles = System.getProperty("spring.profiles.active");
+        final boolean canonical = isCanonical();
+        final Resolution existing = RESOLUTIONS.get(testClass);
+        if (existing != null && existing.isCurrent(sysProfiles, canonical)) {
+            return existing.profiles.clone();
+        }
+
+        final Set<String> activeProfiles = Sets.newLinkedHashSet();
+
+        // load environment profile
+        activeProfiles.addAll(ENV_PROFILES);
+
+        // load system profiles
+        activeProfiles.addAll(splitProfiles("system", sysProfiles));
+
+        // append @ActiveProfiles annotations
+        activeProfiles.addAll(getAnnotationProfiles(testClass));
 
         LOGGER.trace("Merged active profiles: {}", activeProfiles);
-        return activeProfiles.toArray(new String[activeProfiles.size()]);
+        final String[] profiles = activeProfiles.toArray(new String[activeProfiles.size()]);
+        if (canonical) {
+            final List<String> original = ImmutableList.copyOf(profiles);
+            Arrays.sort(profiles);
+            recordCanonicalOrigin(testClass, original, ImmutableList.copyOf(profiles));
+        }
+
+        RESOLUTIONS.put(testClass, new Resolution(sysProfiles, canonical, profiles));
+        return profiles.clone();
     }
 }
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test;
+
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URL;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.io.Resources;
+
+/**
+ * Configures Log4J2 from the <code>log4j2-test.xml</code> file on the classpath, if Log4J2 is
+ * available. Shared by {@link AbstractSpringTest} and other entry points that load a test
+ * context, such as benchmarks.
+ *
+ * <p>
+ * Log4J2 is only configured once per JVM, however many test instances are created.
+ * </p>
+ */
+public final class Log4jTestConfiguration {
+    /** Log4J2 configuration file **/
+    private static final String LOG4J_CONFIG_UNIT_TESTS = "log4j2-test.xml";
+
+    /** Log4J configuration class **/
+    private static final String LOG4J_CONFIGURATOR_CLASS = "org.apache.logging.log4j.core.config.Configurator";
+
+    /** True once Log4J2 has been configured, or found to be unavailable **/
+    private static volatile boolean initialized;
+
+    /**
+     * Initializes Log4J2 using the test configuration file, if both are available. Subsequent
+     * calls do nothing.
+     */
+    public static void initialize() {
+        if (initialized) {
+            return;
+        }
+        synchronized (Log4jTestConfiguration.class) {
+            if (!initialized) {
+                configure();
+                initialized = true;
+            }
+        }
+    }
+
+    private static void configure() {
+        final ClassLoader loader = MoreObjects.firstNonNull( //
+                Thread.currentThread().getContextClassLoader(), //
+                Resources.class.getClassLoader());
+
+        final URL url = loader.getResource(LOG4J_CONFIG_UNIT_TESTS);
+        if (url != null) {
+            Class<?> clazz;
+            try {
+                clazz = Class.forName(LOG4J_CONFIGURATOR_CLASS);
+            } catch (final ClassNotFoundException e1) {
+                // LOG4J not available
+                return;
+            }
+
+            try {
+                // equivalent to Configurator.initialize(null, loader, url.toURI());
+                final Method method = clazz
+                        .getMethod("initialize", String.class, ClassLoader.class, URI.class);
+                method.invoke(null, null, loader, url.toURI());
+            } catch (final Exception e) {
+                throw new RuntimeException("Unable to initialize Log4J", e);
+            }
+        }
+    }
+
+    private Log4jTestConfiguration() {
+        // utility class
+    }
+}
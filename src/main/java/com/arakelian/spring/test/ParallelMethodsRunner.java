@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test;
+
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.junit.runners.model.InitializationError;
+
+import com.arakelian.spring.test.annotation.ParallelMethods;
+import com.arakelian.spring.test.rule.ParallelMethodsScheduler;
+
+/**
+ * Runs the test methods of a class annotated with {@link ParallelMethods} in parallel, for classes
+ * that use {@link com.arakelian.spring.test.rule.SpringClassRule} and
+ * {@link com.arakelian.spring.test.rule.SpringMethodRule}, such as subclasses of
+ * {@link AbstractSpringTest}. Classes without the annotation run sequentially, as with
+ * {@link BlockJUnit4ClassRunner}.
+ *
+ * <p>
+ * Classes run with {@link RunListenerSpringJUnit4ClassRunner} only need the annotation.
+ * </p>
+ */
+public class ParallelMethodsRunner extends BlockJUnit4ClassRunner {
+    /**
+     * Called reflectively on classes annotated with
+     * <code>@RunWith(ParallelMethodsRunner.class)</code>
+     *
+     * @param clazz
+     *            the test class to be run
+     * @throws InitializationError
+     *             if the test class is malformed
+     */
+    public ParallelMethodsRunner(final Class<?> clazz) throws InitializationError {
+        super(clazz);
+        final ParallelMethodsScheduler scheduler = ParallelMethodsScheduler.forClass(clazz);
+        if (scheduler != null) {
+            setScheduler(scheduler);
+        }
+    }
+}
@@ -20,14 +20,32 @@ package com.arakelian.spring.test;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.junit.After;
+import org.junit.Before;
+import org.junit.internal.runners.statements.RunAfters;
+import org.junit.internal.runners.statements.RunBefores;
 import org.junit.runner.notification.RunListener;
+import org.junit.runners.model.FrameworkMethod;
 import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.Statement;
 import org.springframework.test.context.TestContextManager;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.junit4.statements.RunAfterTestMethodCallbacks;
+import org.springframework.test.context.junit4.statements.RunBeforeTestMethodCallbacks;
 
 import com.arakelian.spring.test.annotation.WithRunListener;
+import com.arakelian.spring.test.perf.TestTimings;
+import com.arakelian.spring.test.perf.TimingPhase;
+import com.arakelian.spring.test.rule.AwaitContextPrewarm;
+import com.arakelian.spring.test.rule.ParallelMethodsScheduler;
+import com.arakelian.spring.test.rule.RecordTiming;
 
+/**
+ * Extends {@link SpringJUnit4ClassRunner} with {@link WithRunListener} listeners, timing of each
+ * phase with {@link TestTimings}, and parallel test methods for classes annotated with
+ * {@link com.arakelian.spring.test.annotation.ParallelMethods}.
+ */
 public class RunListenerSpringJUnit4ClassRunner extends SpringJUnit4ClassRunner {
 
     private final List<RunListener> runListeners = new ArrayList<>();
@@ -56,6 +74,11 @@ public class RunListenerSpringJUnit4ClassRunner extends SpringJUnit4ClassRunner
             }
             clazz = clazz.getSuperclass();
         }
+
+        final ParallelMethodsScheduler scheduler = ParallelMethodsScheduler.forClass(getTestClass().getJavaClass());
+        if (scheduler != null) {
+            setScheduler(scheduler);
+        }
     }
 
     @Override
@@ -64,6 +87,90 @@ public class RunListenerSpringJUnit4ClassRunner extends SpringJUnit4ClassRunner
             notifier.addListener(runListener);
         }
 
-        super.run(notifier);
+        try {
+            super.run(notifier);
+        } finally {
+            // the notifier is shared by all runners in a suite, and our listeners only apply to
+            // this test class
+            for (final RunListener runListener : runListeners) {
+                notifier.removeListener(runListener);
+            }
+        }
+    }
+
+    @Override
+    protected Statement classBlock(final RunNotifier notifier) {
+        final Statement statement = super.classBlock(notifier);
+        return new RecordTiming(statement, getTestClass().getJavaClass(), TimingPhase.CLASS);
+    }
+
+    @Override
+    protected Object createTest() throws Exception {
+        final long start = System.nanoTime();
+        try {
+            final TestContextManager testContextManager = getWorkerTestContextManager();
+            if (testContextManager == null) {
+                return super.createTest();
+            }
+            final Object testInstance = getTestClass().getOnlyConstructor().newInstance();
+            testContextManager.prepareTestInstance(testInstance);
+            return testInstance;
+        } finally {
+            TestTimings.record(
+                    getTestClass().getJavaClass(),
+                    TimingPhase.PREPARE_INSTANCE,
+                    System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected Statement withAfters(
+            final FrameworkMethod frameworkMethod,
+            final Object testInstance,
+            final Statement statement) {
+        final TestContextManager testContextManager = getWorkerTestContextManager();
+        final Statement afters;
+        if (testContextManager == null) {
+            afters = super.withAfters(frameworkMethod, testInstance, statement);
+        } else {
+            final List<FrameworkMethod> methods = getTestClass().getAnnotatedMethods(After.class);
+            final Statement junitAfters = methods.isEmpty() ? statement
+                    : new RunAfters(statement, methods, testInstance);
+            afters = new RunAfterTestMethodCallbacks(junitAfters, testInstance, frameworkMethod.getMethod(),
+                    testContextManager);
+        }
+        return new RecordTiming(afters, getTestClass().getJavaClass(), TimingPhase.METHOD);
+    }
+
+    @Override
+    protected Statement withBefores(
+            final FrameworkMethod frameworkMethod,
+            final Object testInstance,
+            final Statement statement) {
+        final TestContextManager testContextManager = getWorkerTestContextManager();
+        if (testContextManager == null) {
+            return super.withBefores(frameworkMethod, testInstance, statement);
+        }
+        final List<FrameworkMethod> methods = getTestClass().getAnnotatedMethods(Before.class);
+        final Statement junitBefores = methods.isEmpty() ? statement
+                : new RunBefores(statement, methods, testInstance);
+        return new RunBeforeTestMethodCallbacks(junitBefores, testInstance, frameworkMethod.getMethod(),
+                testContextManager);
+    }
+
+    @Override
+    protected Statement withBeforeClasses(final Statement statement) {
+        final Statement beforeClasses = super.withBeforeClasses(statement);
+        return new AwaitContextPrewarm(beforeClasses, getTestClass().getJavaClass());
+    }
+
+    /**
+     * Returns the {@link TestContextManager} of the current thread when test methods run in
+     * parallel, since the runner's own manager holds the state of a single test method at a time.
+     *
+     * @return test context manager of the current thread, or null if methods run sequentially
+     */
+    private TestContextManager getWorkerTestContextManager() {
+        return ParallelMethodsScheduler.getTestContextManager(getTestClass().getJavaClass());
     }
 }
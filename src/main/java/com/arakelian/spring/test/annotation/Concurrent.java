@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a test method simultaneously on {@link #threads()} threads against the same test instance
+ * and application context, to find thread-safety bugs and lock contention in shared beans. All
+ * threads are released at once by a start barrier; failures from every thread are reported
+ * together, along with the time each thread spent blocked on monitors.
+ *
+ * <p>
+ * Each thread runs the test's <code>@Before</code> and <code>@After</code> methods along with the
+ * test method, so they must be thread-safe; Spring's before and after test method callbacks run
+ * only once, on the calling thread. Thread-bound state, such as a transaction started by Spring,
+ * is not visible to the other threads. Requires
+ * {@link com.arakelian.spring.test.rule.SpringMethodRule}.
+ * </p>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Concurrent {
+    /**
+     * Returns the number of times each thread runs the test method.
+     *
+     * @return number of iterations per thread
+     */
+    int iterations() default 1;
+
+    /**
+     * Returns the maximum time that all threads together may spend blocked on monitors, in
+     * milliseconds, or a negative value for no limit. Only checked when the JVM supports thread
+     * contention monitoring.
+     *
+     * @return maximum blocked time in milliseconds
+     */
+    long maxBlockedMillis() default -1;
+
+    /**
+     * Returns the number of threads that run the test method.
+     *
+     * @return number of threads
+     */
+    int threads() default 4;
+
+    /**
+     * Returns the time to wait for all threads to finish, in milliseconds.
+     *
+     * @return timeout in milliseconds
+     */
+    long timeoutMillis() default 60_000;
+}
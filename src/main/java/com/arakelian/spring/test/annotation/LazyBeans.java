@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks every singleton bean of the test class's application context as lazy, so that only beans
+ * used by the test, directly or through their dependencies, are created.
+ *
+ * <p>
+ * Beans that must be created at startup for their side effects, such as beans that start
+ * listeners or schedule work, can be listed in {@link #eager()}. Infrastructure beans and bean
+ * factory or bean post processors are never made lazy. Contexts with different settings are cached
+ * separately.
+ * </p>
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface LazyBeans {
+    /**
+     * Returns the names of beans that are created eagerly as usual.
+     *
+     * @return names of beans that are created eagerly
+     */
+    String[] eager() default {};
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the test methods of a class in parallel on a bounded pool of threads, all sharing the
+ * class's application context. Each method still gets its own test instance, and before class and
+ * after class callbacks still run exactly once.
+ *
+ * <p>
+ * Honored by {@link com.arakelian.spring.test.RunListenerSpringJUnit4ClassRunner}, and by
+ * {@link com.arakelian.spring.test.ParallelMethodsRunner} for classes that use
+ * {@link com.arakelian.spring.test.rule.SpringClassRule} and
+ * {@link com.arakelian.spring.test.rule.SpringMethodRule}.
+ * </p>
+ *
+ * <p>
+ * Test methods must be independent of one another, and any beans they use must be thread-safe.
+ * Methods must not change the shared context while others are using it, so
+ * <code>@DirtiesContext</code>, {@link RefreshBeans} and {@link SwappableBeans} should not be used
+ * on the same class. Log events are not buffered by
+ * {@link com.arakelian.spring.test.logging.TestLogBuffer}, since its buffer is shared by all
+ * threads; they are written as usual.
+ * </p>
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ParallelMethods {
+    /**
+     * Returns the maximum number of methods run at the same time, or zero for the number of
+     * available processors.
+     *
+     * @return maximum number of methods run at the same time
+     */
+    int threads() default 0;
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a test method as a micro-benchmark: the method is invoked {@link #warmupIterations()}
+ * times without being measured, and then {@link #iterations()} times while recording its latency
+ * and the bytes it allocates. The test fails when any configured threshold is exceeded.
+ *
+ * <p>
+ * Thresholds are disabled by default. Each iteration includes the test's <code>@Before</code> and
+ * <code>@After</code> methods, but Spring's before and after test method callbacks run only once.
+ * Requires {@link com.arakelian.spring.test.rule.SpringMethodRule}.
+ * </p>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface PerfTest {
+    /**
+     * Returns the number of measured iterations.
+     *
+     * @return number of measured iterations
+     */
+    int iterations() default 100;
+
+    /**
+     * Returns the maximum bytes allocated per iteration, or a negative value for no limit.
+     *
+     * @return maximum bytes allocated per iteration
+     */
+    long maxAllocatedBytes() default -1;
+
+    /**
+     * Returns the maximum mean latency, in {@link #unit()}, or a negative value for no limit.
+     *
+     * @return maximum mean latency
+     */
+    long maxMean() default -1;
+
+    /**
+     * Returns the maximum latency at {@link #percentile()}, in {@link #unit()}, or a negative value
+     * for no limit.
+     *
+     * @return maximum latency at the given percentile
+     */
+    long maxPercentile() default -1;
+
+    /**
+     * Returns the percentile checked against {@link #maxPercentile()}.
+     *
+     * @return percentile between 0 and 100
+     */
+    double percentile() default 99;
+
+    /**
+     * Returns the time unit of the latency thresholds.
+     *
+     * @return time unit of the latency thresholds
+     */
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * Returns the number of iterations run before measuring.
+     *
+     * @return number of warmup iterations
+     */
+    int warmupIterations() default 10;
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Cheaper alternative to <code>@DirtiesContext</code> for tests that modify a few stateful beans:
+ * instead of closing the application context, the named singletons and every bean that depends on
+ * them are destroyed and created again in the same context, and beans in the
+ * {@link com.arakelian.spring.test.context.TestScope test scope} can be discarded.
+ *
+ * <p>
+ * On a test method, beans are refreshed after that method; on a test class, after the class.
+ * Only references held by dependent beans are updated, so beans should not be looked up and
+ * retained outside of dependency injection.
+ * </p>
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface RefreshBeans {
+    /**
+     * Returns true if beans in the test scope should be discarded.
+     *
+     * @return true if beans in the test scope should be discarded
+     */
+    boolean testScope() default false;
+
+    /**
+     * Returns the names of the singleton beans to create again.
+     *
+     * @return names of the singleton beans to create again
+     */
+    String[] value() default {};
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Wraps the beans of the given types in swappable proxies, so that test methods can replace them
+ * with mocks or spies through
+ * {@link com.arakelian.spring.test.AbstractSpringTest#swapBean(Class, Object)} without creating a
+ * new application context. Replacements are reverted after each test method.
+ *
+ * <p>
+ * Contexts are cached by the set of swappable types, so declare this annotation on a base class
+ * shared by all test classes that should use the same context, listing every type any of them
+ * swaps. Each type must match exactly one bean, and must be an interface or a non-final class.
+ * </p>
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface SwappableBeans {
+    /**
+     * Returns the types of the beans that can be swapped.
+     *
+     * @return types of the beans that can be swapped
+     */
+    Class<?>[] value();
+}
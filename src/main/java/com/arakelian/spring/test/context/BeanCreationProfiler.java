@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+/**
+ * Records the time spent creating each bean of an application context, from instantiation to the
+ * end of initialization, and writes it in the folded stack format used by flame graph tools
+ * (<code>thread;outerBean;innerBean selfMicros</code>) once the context is refreshed.
+ *
+ * <p>
+ * Beans created while another bean is being created are its dependencies, so the stack of beans
+ * being created on each thread is the dependency chain. The time attributed to a bean excludes
+ * the time spent creating its dependencies.
+ * </p>
+ */
+class BeanCreationProfiler extends InstantiationAwareBeanPostProcessorAdapter
+        implements ApplicationListener<ContextRefreshedEvent> {
+    /** A bean being created **/
+    private static final class Frame {
+        private final String beanName;
+        private final String stack;
+        private final long start;
+        private long childNanos;
+
+        private Frame(final String beanName, final String stack, final long start) {
+            this.beanName = beanName;
+            this.stack = stack;
+            this.start = start;
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BeanCreationProfiler.class);
+
+    /** Number of beans logged when the context is refreshed **/
+    private static final int TOP_BEANS = 10;
+
+    private static String toFrameName(final String name) {
+        // frames are separated by semicolons, and the value by a space
+        return name.replace(';', '_').replace(' ', '_');
+    }
+
+    private final ApplicationContext applicationContext;
+
+    private final File file;
+
+    private final ThreadLocal<Deque<Frame>> frames = new ThreadLocal<Deque<Frame>>() {
+        @Override
+        protected Deque<Frame> initialValue() {
+            return new ArrayDeque<>();
+        }
+    };
+
+    /** Self time in nanoseconds, by folded stack **/
+    private final ConcurrentMap<String, LongAdder> stacks = new ConcurrentHashMap<>();
+
+    /** Self time in nanoseconds, by bean name **/
+    private final ConcurrentMap<String, LongAdder> beans = new ConcurrentHashMap<>();
+
+    private volatile boolean refreshed;
+
+    BeanCreationProfiler(final ApplicationContext applicationContext, final File file) {
+        this.applicationContext = applicationContext;
+        this.file = file;
+    }
+
+    @Override
+    public void onApplicationEvent(final ContextRefreshedEvent event) {
+        if (event.getApplicationContext() != applicationContext || refreshed) {
+            // ignore events published by child contexts
+            return;
+        }
+        refreshed = true;
+        frames.remove();
+        write();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+        if (refreshed) {
+            return bean;
+        }
+
+        final long now = System.nanoTime();
+        final Deque<Frame> stack = frames.get();
+
+        // a bean whose creation failed never reaches this point, so discard its frame as well
+        Frame frame = null;
+        if (contains(stack, beanName)) {
+            do {
+                frame = stack.pop();
+            } while (!frame.beanName.equals(beanName));
+        }
+        if (frame == null) {
+            // bean was not instantiated by the bean factory, e.g. a registered singleton
+            return bean;
+        }
+
+        final long total = now - frame.start;
+        final long self = Math.max(0, total - frame.childNanos);
+        add(stacks, frame.stack, self);
+        add(beans, beanName, self);
+        final Frame parent = stack.peek();
+        if (parent != null) {
+            parent.childNanos += total;
+        }
+        return bean;
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(final Class<?> beanClass, final String beanName) {
+        if (!refreshed) {
+            final Deque<Frame> stack = frames.get();
+            final Frame parent = stack.peek();
+            final String prefix = parent != null ? parent.stack : toFrameName(Thread.currentThread().getName());
+            stack.push(new Frame(beanName, prefix + ';' + toFrameName(beanName), System.nanoTime()));
+        }
+        return null;
+    }
+
+    private void add(final ConcurrentMap<String, LongAdder> map, final String key, final long nanos) {
+        LongAdder adder = map.get(key);
+        if (adder == null) {
+            final LongAdder newAdder = new LongAdder();
+            adder = map.putIfAbsent(key, newAdder);
+            if (adder == null) {
+                adder = newAdder;
+            }
+        }
+        adder.add(nanos);
+    }
+
+    private boolean contains(final Deque<Frame> stack, final String beanName) {
+        for (final Frame frame : stack) {
+            if (frame.beanName.equals(beanName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Map.Entry<String, LongAdder>> sortBySelfTime(final Map<String, LongAdder> map) {
+        final List<Map.Entry<String, LongAdder>> entries = new ArrayList<>(map.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, LongAdder>>() {
+            @Override
+            public int compare(final Map.Entry<String, LongAdder> lhs, final Map.Entry<String, LongAdder> rhs) {
+                return Long.compare(rhs.getValue().sum(), lhs.getValue().sum());
+            }
+        });
+        return entries;
+    }
+
+    private void write() {
+        final StringBuilder buf = new StringBuilder(8192);
+        for (final Map.Entry<String, LongAdder> entry : sortBySelfTime(stacks)) {
+            final long micros = TimeUnit.NANOSECONDS.toMicros(entry.getValue().sum());
+            if (micros != 0) {
+                buf.append(entry.getKey()).append(' ').append(micros).append('\n');
+            }
+        }
+
+        try {
+            final File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                Files.createDirectories(parent.toPath());
+            }
+            Files.write(file.toPath(), buf.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to write bean creation profile to {}", file, e);
+            return;
+        }
+
+        if (LOGGER.isInfoEnabled()) {
+            final StringBuilder top = new StringBuilder();
+            final List<Map.Entry<String, LongAdder>> slowest = sortBySelfTime(beans);
+            for (final Map.Entry<String, LongAdder> entry : slowest.subList(0, Math.min(TOP_BEANS, slowest.size()))) {
+                top.append(String.format(
+                        Locale.ROOT,
+                        "%n  %8dms  %s",
+                        Long.valueOf(TimeUnit.NANOSECONDS.toMillis(entry.getValue().sum())),
+                        entry.getKey()));
+            }
+            LOGGER.info("Wrote bean creation profile of {} beans to {}; slowest beans:{}", beans.size(), file, top);
+        }
+    }
+}
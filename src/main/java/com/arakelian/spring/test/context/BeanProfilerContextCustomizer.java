@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.io.File;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ContextCustomizer;
+import org.springframework.test.context.MergedContextConfiguration;
+
+/**
+ * Profiles the creation of every bean in a test context; see {@link BeanCreationProfiler}.
+ *
+ * <p>
+ * All instances are equal, so that profiling does not change how contexts are cached.
+ * </p>
+ */
+class BeanProfilerContextCustomizer implements ContextCustomizer {
+    private final File directory;
+
+    BeanProfilerContextCustomizer(final File directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public void customizeContext(
+            final ConfigurableApplicationContext context,
+            final MergedContextConfiguration mergedConfig) {
+        // one file per unique context, i.e. per context cache key
+        final String name = mergedConfig.getTestClass().getSimpleName() + "-"
+                + Integer.toHexString(mergedConfig.hashCode()) + ".folded";
+        final BeanCreationProfiler profiler = new BeanCreationProfiler(context, new File(directory, name));
+        context.getBeanFactory().addBeanPostProcessor(profiler);
+        context.addApplicationListener(profiler);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return obj != null && obj.getClass() == getClass();
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.io.File;
+import java.util.List;
+
+import org.springframework.test.context.ContextConfigurationAttributes;
+import org.springframework.test.context.ContextCustomizer;
+import org.springframework.test.context.ContextCustomizerFactory;
+
+/**
+ * Adds a {@link BeanProfilerContextCustomizer} to every test context when the
+ * {@value #ENABLED_PROPERTY} system property is <code>true</code>. Registered in
+ * <code>META-INF/spring.factories</code>.
+ *
+ * <p>
+ * Profiles are written to the directory named by the {@value #DIRECTORY_PROPERTY} system
+ * property, one file for each context that is loaded.
+ * </p>
+ */
+public class BeanProfilerContextCustomizerFactory implements ContextCustomizerFactory {
+    /** System property that enables bean creation profiling **/
+    public static final String ENABLED_PROPERTY = "spring.test.beanProfiler";
+
+    /** System property with the directory that profiles are written to **/
+    public static final String DIRECTORY_PROPERTY = "spring.test.beanProfiler.dir";
+
+    private static final String DEFAULT_DIRECTORY = "build/reports/bean-profiles";
+
+    @Override
+    public ContextCustomizer createContextCustomizer(
+            final Class<?> testClass,
+            final List<ContextConfigurationAttributes> configAttributes) {
+        if (!Boolean.getBoolean(ENABLED_PROPERTY)) {
+            return null;
+        }
+        return new BeanProfilerContextCustomizer(
+                new File(System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY)));
+    }
+}
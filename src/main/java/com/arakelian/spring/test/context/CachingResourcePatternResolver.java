@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+/**
+ * Resolves class file patterns used by component scanning from a {@link ComponentScanCache},
+ * falling back to the application context for everything else.
+ *
+ * <p>
+ * Only the listing of class files is cached: the component scanner still reads the metadata of
+ * every listed class file with ASM, which is usually most of the cost of a scan.
+ * </p>
+ */
+class CachingResourcePatternResolver implements ResourcePatternResolver {
+    private final ResourcePatternResolver delegate;
+
+    private final ComponentScanCache cache;
+
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /** Time spent listing class files when these patterns were originally resolved **/
+    private final AtomicLong savedNanos = new AtomicLong();
+
+    /** Time spent resolving patterns from the cache **/
+    private final AtomicLong cachedNanos = new AtomicLong();
+
+    CachingResourcePatternResolver(final ResourcePatternResolver delegate, final ComponentScanCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public ClassLoader getClassLoader() {
+        return delegate.getClassLoader();
+    }
+
+    int getHits() {
+        return hits.get();
+    }
+
+    int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the time saved by resolving patterns from the cache rather than listing class files;
+     * this does not include reading class metadata, which is not cached.
+     *
+     * @return time saved listing class files, in nanoseconds
+     */
+    long getSavedNanos() {
+        return Math.max(0, savedNanos.get() - cachedNanos.get());
+    }
+
+    @Override
+    public Resource getResource(final String location) {
+        return delegate.getResource(location);
+    }
+
+    @Override
+    public Resource[] getResources(final String locationPattern) throws IOException {
+        if (!locationPattern.startsWith(CLASSPATH_ALL_URL_PREFIX) || !locationPattern.endsWith(".class")) {
+            return delegate.getResources(locationPattern);
+        }
+
+        final long start = System.nanoTime();
+        final ComponentScanCache.Entry entry = cache.get(locationPattern);
+        if (entry != null) {
+            final List<URL> urls = entry.getUrls();
+            final Resource[] resources = new Resource[urls.size()];
+            for (int i = 0; i < resources.length; i++) {
+                resources[i] = new UrlResource(urls.get(i));
+            }
+            hits.incrementAndGet();
+            savedNanos.addAndGet(entry.getScanNanos());
+            cachedNanos.addAndGet(System.nanoTime() - start);
+            return resources;
+        }
+
+        final Resource[] resources = delegate.getResources(locationPattern);
+        final List<URL> urls = new ArrayList<>(resources.length);
+        for (final Resource resource : resources) {
+            urls.add(resource.getURL());
+        }
+        misses.incrementAndGet();
+        cache.put(locationPattern, new ComponentScanCache.Entry(urls, System.nanoTime() - start));
+        return resources;
+    }
+}
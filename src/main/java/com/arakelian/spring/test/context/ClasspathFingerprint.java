@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Computes a hash of the classpath that changes whenever a class or resource on it may have
+ * changed: jars are identified by their path, size and modification time, and directories by the
+ * path, size and modification time of every file below them.
+ *
+ * <p>
+ * Only JDK classes are used, so that the {@link com.arakelian.spring.test.daemon.TestDaemon} can
+ * use this class with nothing else on its classpath.
+ * </p>
+ */
+public final class ClasspathFingerprint {
+    /**
+     * Returns a fingerprint of the classpath visible to the given class loader.
+     *
+     * @param classLoader
+     *            class loader
+     * @return hex-encoded fingerprint
+     */
+    static String compute(final ClassLoader classLoader) {
+        return compute(getEntries(classLoader));
+    }
+
+    /**
+     * Returns a fingerprint of the given classpath entries.
+     *
+     * @param entries
+     *            jars and directories, in classpath order
+     * @return hex-encoded fingerprint
+     */
+    public static String compute(final Collection<File> entries) {
+        final MessageDigest digest = newDigest();
+        for (final File entry : entries) {
+            putString(digest, entry.getPath());
+            if (entry.isDirectory()) {
+                putDirectory(digest, entry.toPath());
+            } else {
+                putLong(digest, entry.length());
+                putLong(digest, entry.lastModified());
+            }
+        }
+
+        final byte[] hash = digest.digest();
+        final StringBuilder buf = new StringBuilder(hash.length * 2);
+        for (final byte b : hash) {
+            buf.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return buf.toString();
+    }
+
+    private static Set<File> getEntries(final ClassLoader classLoader) {
+        final Set<File> entries = new LinkedHashSet<>();
+        for (ClassLoader loader = classLoader; loader != null; loader = loader.getParent()) {
+            if (loader instanceof URLClassLoader) {
+                for (final URL url : ((URLClassLoader) loader).getURLs()) {
+                    if ("file".equals(url.getProtocol())) {
+                        try {
+                            entries.add(new File(url.toURI()).getAbsoluteFile());
+                        } catch (final URISyntaxException | IllegalArgumentException e) {
+                            entries.add(new File(url.getPath()).getAbsoluteFile());
+                        }
+                    }
+                }
+            }
+        }
+        for (final String path : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            if (!path.isEmpty()) {
+                entries.add(new File(path).getAbsoluteFile());
+            }
+        }
+        return entries;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            // every JVM is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void putDirectory(final MessageDigest digest, final Path directory) {
+        try {
+            Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                    putString(digest, directory.relativize(file).toString());
+                    putLong(digest, attrs.size());
+                    putLong(digest, attrs.lastModifiedTime().toMillis());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (final IOException e) {
+            // unreadable directory; make sure the fingerprint never matches again
+            putLong(digest, System.nanoTime());
+        }
+    }
+
+    private static void putLong(final MessageDigest digest, final long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            digest.update((byte) (value >>> shift));
+        }
+    }
+
+    private static void putString(final MessageDigest digest, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putLong(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    private ClasspathFingerprint() {
+        // utility class
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Component-scan listings, i.e. the class files matching each scanned package pattern, saved to
+ * local disk so that later JVMs with an identical classpath do not need to list them again. The
+ * scanner still reads the metadata of each class file. The cache file is named after a
+ * {@link ClasspathFingerprint fingerprint} of the classpath, so any change to the classpath
+ * invalidates it.
+ *
+ * <p>
+ * Test tasks with different classpaths, such as unit and integration tests, share the cache
+ * directory, so cache files of other classpaths are only deleted once they have not been used for
+ * {@value #STALE_DAYS} days.
+ * </p>
+ */
+final class ComponentScanCache {
+    /** Result of scanning for a single pattern **/
+    static final class Entry {
+        private final List<URL> urls;
+        private final long scanNanos;
+
+        Entry(final List<URL> urls, final long scanNanos) {
+            this.urls = Collections.unmodifiableList(urls);
+            this.scanNanos = scanNanos;
+        }
+
+        /**
+         * Returns the time it took to scan for this pattern originally.
+         *
+         * @return time it took to scan for this pattern, in nanoseconds
+         */
+        long getScanNanos() {
+            return scanNanos;
+        }
+
+        List<URL> getUrls() {
+            return urls;
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ComponentScanCache.class);
+
+    /** System property with the directory that cache files are written to **/
+    static final String DIRECTORY_PROPERTY = "spring.test.scanCache.dir";
+
+    private static final String DEFAULT_DIRECTORY = "build/spring-test-scan-cache";
+
+    private static final String PREFIX = "component-scan-";
+
+    private static final String SUFFIX = ".txt";
+
+    /** Number of days after which an unused cache file is deleted **/
+    private static final int STALE_DAYS = 7;
+
+    /** Cache for each class loader, since scan results depend on the classpath **/
+    private static final Map<ClassLoader, ComponentScanCache> CACHES = new WeakHashMap<>();
+
+    /**
+     * Returns the cache for the classpath of the given class loader, loading it from disk if
+     * necessary.
+     *
+     * @param classLoader
+     *            class loader
+     * @return cache for the classpath of the given class loader
+     */
+    static ComponentScanCache forClassLoader(final ClassLoader classLoader) {
+        synchronized (CACHES) {
+            ComponentScanCache cache = CACHES.get(classLoader);
+            if (cache == null) {
+                final File directory = new File(System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY));
+                final long start = System.nanoTime();
+                final String fingerprint = ClasspathFingerprint.compute(classLoader);
+                final long fingerprintNanos = System.nanoTime() - start;
+                LOGGER.debug(
+                        "Computed classpath fingerprint {} in {}ms",
+                        fingerprint,
+                        TimeUnit.NANOSECONDS.toMillis(fingerprintNanos));
+                cache = new ComponentScanCache(new File(directory, PREFIX + fingerprint + SUFFIX), fingerprintNanos);
+                CACHES.put(classLoader, cache);
+            }
+            return cache;
+        }
+    }
+
+    private final File file;
+
+    private final long fingerprintNanos;
+
+    private final Map<String, Entry> entries;
+
+    private ComponentScanCache(final File file, final long fingerprintNanos) {
+        this.file = file;
+        this.fingerprintNanos = fingerprintNanos;
+        this.entries = read(file);
+    }
+
+    /**
+     * Returns the time it took to fingerprint the classpath, which is spent once per class loader
+     * whether or not the cache saves anything.
+     *
+     * @return time it took to fingerprint the classpath, in nanoseconds
+     */
+    long getFingerprintNanos() {
+        return fingerprintNanos;
+    }
+
+    synchronized Entry get(final String pattern) {
+        return entries.get(pattern);
+    }
+
+    synchronized void put(final String pattern, final Entry entry) {
+        entries.put(pattern, entry);
+        write();
+    }
+
+    private Map<String, Entry> read(final File cacheFile) {
+        final Map<String, Entry> result = new HashMap<>();
+        if (!cacheFile.isFile()) {
+            return result;
+        }
+        try {
+            for (final String line : Files.readAllLines(cacheFile.toPath(), StandardCharsets.UTF_8)) {
+                // pattern, scan time and matching URLs, separated by tabs
+                final String[] fields = StringUtils.splitPreserveAllTokens(line, '\t');
+                if (fields.length < 2) {
+                    continue;
+                }
+                final List<URL> urls = new ArrayList<>(fields.length - 2);
+                for (int i = 2; i < fields.length; i++) {
+                    urls.add(new URL(fields[i]));
+                }
+                result.put(fields[0], new Entry(urls, Long.parseLong(fields[1])));
+            }
+        } catch (final IOException | NumberFormatException e) {
+            LOGGER.warn("Ignoring unreadable component scan cache {}", cacheFile, e);
+            result.clear();
+            return result;
+        }
+
+        // mark the cache as in use, so that other classpaths do not delete it as stale
+        if (!cacheFile.setLastModified(System.currentTimeMillis())) {
+            LOGGER.debug("Unable to update modification time of component scan cache {}", cacheFile);
+        }
+        return result;
+    }
+
+    private void write() {
+        final File directory = file.getAbsoluteFile().getParentFile();
+        try {
+            Files.createDirectories(directory.toPath());
+
+            // write to a temporary file first, so that other JVMs never read a partial file
+            final File temp = File.createTempFile(PREFIX, ".tmp", directory);
+            try (BufferedWriter writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+                for (final Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    writer.write(entry.getKey());
+                    writer.write('\t');
+                    writer.write(Long.toString(entry.getValue().scanNanos));
+                    for (final URL url : entry.getValue().urls) {
+                        writer.write('\t');
+                        writer.write(url.toExternalForm());
+                    }
+                    writer.write('\n');
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to write component scan cache {}", file, e);
+            return;
+        }
+
+        // remove caches of classpaths that have not been used for a while
+        final long staleBefore = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(STALE_DAYS);
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (final File other : files) {
+                final String name = other.getName();
+                if (name.startsWith(PREFIX) && name.endsWith(SUFFIX) && !name.equals(file.getName())
+                        && other.lastModified() < staleBefore) {
+                    if (!other.delete()) {
+                        LOGGER.debug("Unable to delete stale component scan cache {}", other);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.MergedContextConfiguration;
+import org.springframework.test.context.cache.ContextCache;
+import org.springframework.test.context.cache.DefaultCacheAwareContextLoaderDelegate;
+
+/**
+ * Provides access to the static {@link ContextCache} that Spring shares between all
+ * {@link org.springframework.test.context.TestContextManager} instances in the JVM.
+ */
+public final class ContextCaches {
+    private static final class Delegate extends DefaultCacheAwareContextLoaderDelegate {
+        ContextCache contextCache() {
+            return getContextCache();
+        }
+
+        ApplicationContext load(final MergedContextConfiguration config) throws Exception {
+            return loadContextInternal(config);
+        }
+    }
+
+    private static final Delegate DELEGATE = new Delegate();
+
+    /**
+     * Returns the default context cache used by Spring's TestContext framework.
+     *
+     * @return the default context cache
+     */
+    public static ContextCache getDefaultContextCache() {
+        return DELEGATE.contextCache();
+    }
+
+    /**
+     * Loads a new application context for the given configuration without consulting or
+     * updating the context cache.
+     *
+     * @param config
+     *            merged context configuration
+     * @return new application context
+     * @throws Exception
+     *             if the context cannot be loaded
+     */
+    static ApplicationContext loadUncached(final MergedContextConfiguration config) throws Exception {
+        return DELEGATE.load(config);
+    }
+
+    private ContextCaches() {
+        // utility class
+    }
+}
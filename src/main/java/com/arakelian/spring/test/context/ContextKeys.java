@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.test.context.BootstrapContext;
+import org.springframework.test.context.MergedContextConfiguration;
+import org.springframework.test.context.TestContextBootstrapper;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Computes the {@link MergedContextConfiguration} of a test class, which Spring uses as the key of
+ * its {@link org.springframework.context.ApplicationContext} cache.
+ *
+ * <p>
+ * Two test classes share a cached context if, and only if, their merged context configurations
+ * are equal. Active profiles, including those contributed by
+ * {@link com.arakelian.spring.test.ImprovedActiveProfilesResolver}, are part of the key.
+ * </p>
+ */
+public final class ContextKeys {
+    /** Spring keeps bootstrapper resolution package-private, so we call it reflectively **/
+    private static final String BOOTSTRAP_UTILS_CLASS = "org.springframework.test.context.BootstrapUtils";
+
+    private static final Method CREATE_BOOTSTRAP_CONTEXT;
+
+    private static final Method RESOLVE_TEST_CONTEXT_BOOTSTRAPPER;
+
+    private static final Map<Class<?>, MergedContextConfiguration> CACHE = new ConcurrentHashMap<>();
+
+    static {
+        final Class<?> bootstrapUtils = ClassUtils
+                .resolveClassName(BOOTSTRAP_UTILS_CLASS, ContextKeys.class.getClassLoader());
+        CREATE_BOOTSTRAP_CONTEXT = ReflectionUtils.findMethod(bootstrapUtils, "createBootstrapContext", Class.class);
+        RESOLVE_TEST_CONTEXT_BOOTSTRAPPER = ReflectionUtils
+                .findMethod(bootstrapUtils, "resolveTestContextBootstrapper", BootstrapContext.class);
+        Assert.state(
+                CREATE_BOOTSTRAP_CONTEXT != null && RESOLVE_TEST_CONTEXT_BOOTSTRAPPER != null,
+                "Unsupported version of spring-test");
+        ReflectionUtils.makeAccessible(CREATE_BOOTSTRAP_CONTEXT);
+        ReflectionUtils.makeAccessible(RESOLVE_TEST_CONTEXT_BOOTSTRAPPER);
+    }
+
+    /**
+     * Returns the merged context configuration of the given test class, exactly as the
+     * {@link org.springframework.test.context.TestContextManager} of that class would compute it.
+     *
+     * @param testClass
+     *            test class
+     * @return merged context configuration of the given test class
+     */
+    public static MergedContextConfiguration getMergedContextConfiguration(final Class<?> testClass) {
+        Assert.notNull(testClass, "testClass must not be null");
+        MergedContextConfiguration config = CACHE.get(testClass);
+        if (config == null) {
+            config = getTestContextBootstrapper(testClass).buildMergedContextConfiguration();
+            CACHE.putIfAbsent(testClass, config);
+        }
+        return config;
+    }
+
+    /**
+     * Returns the {@link TestContextBootstrapper} that Spring would use for the given test class.
+     *
+     * @param testClass
+     *            test class
+     * @return test context bootstrapper for the given test class
+     */
+    public static TestContextBootstrapper getTestContextBootstrapper(final Class<?> testClass) {
+        Assert.notNull(testClass, "testClass must not be null");
+        final Object bootstrapContext = ReflectionUtils.invokeMethod(CREATE_BOOTSTRAP_CONTEXT, null, testClass);
+        return (TestContextBootstrapper) ReflectionUtils
+                .invokeMethod(RESOLVE_TEST_CONTEXT_BOOTSTRAPPER, null, bootstrapContext);
+    }
+
+    private ContextKeys() {
+        // utility class
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.context.cache.ContextCacheUtils;
+import org.springframework.util.Assert;
+
+/**
+ * Reorders test classes so that classes which share an
+ * {@link org.springframework.context.ApplicationContext} run one after the other.
+ *
+ * <p>
+ * Groups appear in the order in which their first class appears in the original list, and classes
+ * keep their original relative order within a group. As a result, each context is loaded once and
+ * is no longer needed once its group finishes, which keeps Spring's LRU context cache from
+ * thrashing.
+ * </p>
+ */
+public final class ContextOrdering {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContextOrdering.class);
+
+    /**
+     * Returns the number of contexts that Spring would load if the given classes ran in the given
+     * order against an LRU context cache of the given size.
+     *
+     * @param keys
+     *            context key of each test class, in execution order
+     * @param cacheSize
+     *            maximum size of the context cache
+     * @return number of context loads
+     */
+    public static int estimateContextLoads(final List<?> keys, final int cacheSize) {
+        Assert.isTrue(cacheSize > 0, "cacheSize must be positive");
+        final Set<Object> cache = new LinkedHashSet<>();
+        int loads = 0;
+        for (final Object key : keys) {
+            if (cache.remove(key)) {
+                // hit; re-insert to mark as most recently used
+                cache.add(key);
+                continue;
+            }
+            loads++;
+            cache.add(key);
+            if (cache.size() > cacheSize) {
+                cache.remove(cache.iterator().next());
+            }
+        }
+        return loads;
+    }
+
+    /**
+     * Returns the context key for the given test class, or the class itself if the key cannot be
+     * computed.
+     *
+     * @param testClass
+     *            test class
+     * @return context key for the given test class
+     */
+    static Object getContextKey(final Class<?> testClass) {
+        try {
+            return ContextKeys.getMergedContextConfiguration(testClass);
+        } catch (final RuntimeException e) {
+            LOGGER.debug("Unable to compute context key of test class [{}]", testClass.getName(), e);
+            return testClass;
+        }
+    }
+
+    public static ContextOrdering of(final List<Class<?>> testClasses) {
+        return new ContextOrdering(testClasses, ContextCacheUtils.retrieveMaxCacheSize());
+    }
+
+    private final List<Class<?>> originalClasses;
+
+    private final List<Class<?>> orderedClasses;
+
+    private final List<List<Class<?>>> groups;
+
+    private final int originalContextLoads;
+
+    private final int orderedContextLoads;
+
+    public ContextOrdering(final List<Class<?>> testClasses, final int cacheSize) {
+        Assert.notNull(testClasses, "testClasses must not be null");
+
+        final Map<Object, List<Class<?>>> byKey = new LinkedHashMap<>();
+        final List<Object> originalKeys = new ArrayList<>(testClasses.size());
+        for (final Class<?> testClass : testClasses) {
+            final Object key = getContextKey(testClass);
+            originalKeys.add(key);
+            List<Class<?>> group = byKey.get(key);
+            if (group == null) {
+                group = new ArrayList<>();
+                byKey.put(key, group);
+            }
+            group.add(testClass);
+        }
+
+        final List<Class<?>> ordered = new ArrayList<>(testClasses.size());
+        final List<Object> orderedKeys = new ArrayList<>(testClasses.size());
+        final List<List<Class<?>>> groupList = new ArrayList<>(byKey.size());
+        for (final Map.Entry<Object, List<Class<?>>> entry : byKey.entrySet()) {
+            final List<Class<?>> group = entry.getValue();
+            groupList.add(Collections.unmodifiableList(group));
+            ordered.addAll(group);
+            for (int i = 0, size = group.size(); i < size; i++) {
+                orderedKeys.add(entry.getKey());
+            }
+        }
+
+        this.originalClasses = Collections.unmodifiableList(new ArrayList<>(testClasses));
+        this.orderedClasses = Collections.unmodifiableList(ordered);
+        this.groups = Collections.unmodifiableList(groupList);
+        this.originalContextLoads = estimateContextLoads(originalKeys, cacheSize);
+        this.orderedContextLoads = estimateContextLoads(orderedKeys, cacheSize);
+    }
+
+    /**
+     * Returns the estimated number of context loads avoided by running classes in context order
+     * rather than in their original order.
+     *
+     * @return estimated number of context loads avoided
+     */
+    public int getContextLoadsAvoided() {
+        return originalContextLoads - orderedContextLoads;
+    }
+
+    /**
+     * Returns the test classes grouped by shared context.
+     *
+     * @return test classes grouped by shared context
+     */
+    public List<List<Class<?>>> getGroups() {
+        return groups;
+    }
+
+    public List<Class<?>> getOrderedClasses() {
+        return orderedClasses;
+    }
+
+    public int getOrderedContextLoads() {
+        return orderedContextLoads;
+    }
+
+    public List<Class<?>> getOriginalClasses() {
+        return originalClasses;
+    }
+
+    public int getOriginalContextLoads() {
+        return originalContextLoads;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("ContextOrdering [");
+        builder.append("classes=").append(orderedClasses.size());
+        builder.append(", contexts=").append(groups.size());
+        builder.append(", originalContextLoads=").append(originalContextLoads);
+        builder.append(", orderedContextLoads=").append(orderedContextLoads);
+        builder.append(", contextLoadsAvoided=").append(getContextLoadsAvoided());
+        builder.append("]");
+        return builder.toString();
+    }
+}
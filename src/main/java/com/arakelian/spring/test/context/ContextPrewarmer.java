@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.MergedContextConfiguration;
+import org.springframework.test.context.cache.ContextCache;
+import org.springframework.test.context.cache.ContextCacheUtils;
+import org.springframework.util.Assert;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Loads the {@link ApplicationContext} of an upcoming test class on a background thread, and
+ * places it in Spring's context cache so that the test class finds it ready.
+ *
+ * <p>
+ * Pre-warming is opt-in: the number of contexts that may be warming at the same time is set by
+ * the {@value #MAX_CONCURRENT_PROPERTY} system property, and defaults to
+ * {@value #DEFAULT_MAX_CONCURRENT}, which disables it. Requests beyond the cap are skipped rather
+ * than queued, so that heap usage stays bounded. A Spring context cache that can hold only one
+ * context also disables pre-warming.
+ * </p>
+ *
+ * <p>
+ * A context that warms in the background competes with the running tests for CPU, and makes heap
+ * usage deltas unreliable while it loads: the {@link HeapAwareContextEvictor} does not estimate
+ * the size of contexts that test classes load while {@link #isWarming()}, and the estimates of
+ * pre-warmed contexts include whatever the running tests allocate in the meantime.
+ * </p>
+ */
+public final class ContextPrewarmer {
+    /** System property that can be used to override the maximum number of contexts warming at once **/
+    public static final String MAX_CONCURRENT_PROPERTY = "spring.test.prewarm.maxConcurrent";
+
+    /** Default maximum number of contexts warming at once; pre-warming is disabled by default **/
+    public static final int DEFAULT_MAX_CONCURRENT = 0;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContextPrewarmer.class);
+
+    private static final ContextPrewarmer DEFAULT = new ContextPrewarmer(
+            Integer.getInteger(MAX_CONCURRENT_PROPERTY, DEFAULT_MAX_CONCURRENT));
+
+    /**
+     * Returns the pre-warmer shared by {@link com.arakelian.spring.test.rule.SpringClassRule} and
+     * the runners in this library.
+     *
+     * @return the shared pre-warmer
+     */
+    public static ContextPrewarmer getDefault() {
+        return DEFAULT;
+    }
+
+    private final int maxConcurrent;
+
+    private final Semaphore permits;
+
+    private final ExecutorService executor;
+
+    private final Map<MergedContextConfiguration, Future<?>> pending = new ConcurrentHashMap<>();
+
+    private final AtomicInteger prewarmed = new AtomicInteger();
+
+    private final AtomicInteger skipped = new AtomicInteger();
+
+    public ContextPrewarmer(final int maxConcurrent) {
+        Assert.isTrue(maxConcurrent >= 0, "maxConcurrent must be non-negative");
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+        this.executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder() //
+                .setNameFormat("context-prewarm-%d") //
+                .setDaemon(true) //
+                .build());
+    }
+
+    /**
+     * Waits for a pending pre-warm of the given test class's context, if there is one. Failures
+     * are ignored here; they will be reported when the test class loads its context.
+     *
+     * @param testClass
+     *            test class that is about to run
+     * @throws InterruptedException
+     *             if the current thread is interrupted while waiting
+     */
+    public void await(final Class<?> testClass) throws InterruptedException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        final Future<?> future;
+        try {
+            future = pending.get(ContextKeys.getMergedContextConfiguration(testClass));
+        } catch (final RuntimeException e) {
+            // test class will report the problem when it loads its context
+            return;
+        }
+        if (future == null) {
+            return;
+        }
+
+        LOGGER.debug("Waiting for pre-warmed context of test class [{}]", testClass.getName());
+        try {
+            future.get();
+        } catch (final ExecutionException e) {
+            LOGGER.debug("Pre-warming context of test class [{}] failed", testClass.getName(), e.getCause());
+        }
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * Returns the number of contexts that were loaded in the background and added to the cache.
+     *
+     * @return number of contexts that were loaded in the background
+     */
+    public int getPrewarmedCount() {
+        return prewarmed.get();
+    }
+
+    /**
+     * Returns the number of pre-warm requests that were skipped because too many contexts were
+     * already warming.
+     *
+     * @return number of pre-warm requests that were skipped
+     */
+    public int getSkippedCount() {
+        return skipped.get();
+    }
+
+    /**
+     * Returns true if a context is currently loading in the background.
+     *
+     * @return true if a context is currently loading in the background
+     */
+    public boolean isWarming() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Starts loading the context of the given test class in the background, unless it is already
+     * cached, already warming, or the maximum number of contexts are already warming.
+     *
+     * @param testClass
+     *            test class that will run soon
+     * @return true if pre-warming was started
+     */
+    public boolean prewarm(final Class<?> testClass) {
+        Assert.notNull(testClass, "testClass must not be null");
+        if (maxConcurrent == 0) {
+            return false;
+        }
+        if (ContextCacheUtils.retrieveMaxCacheSize() < 2) {
+            // adding a context would evict the one that is in use
+            return false;
+        }
+
+        final MergedContextConfiguration config;
+        try {
+            config = ContextKeys.getMergedContextConfiguration(testClass);
+        } catch (final RuntimeException e) {
+            LOGGER.debug("Unable to compute context key of test class [{}]", testClass.getName(), e);
+            return false;
+        }
+
+        final ContextCache contextCache = ContextCaches.getDefaultContextCache();
+        if (contextCache.contains(config) || pending.containsKey(config)) {
+            return false;
+        }
+        if (!permits.tryAcquire()) {
+            skipped.incrementAndGet();
+            LOGGER.debug(
+                    "Not pre-warming context of test class [{}]; {} contexts are already warming",
+                    testClass.getName(),
+                    Integer.valueOf(maxConcurrent));
+            return false;
+        }
+
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        final FutureTask<Void> task = new FutureTask<>(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                final Thread thread = Thread.currentThread();
+                final ClassLoader previous = thread.getContextClassLoader();
+                thread.setContextClassLoader(classLoader);
+                try {
+                    load(testClass, config, contextCache);
+                } finally {
+                    thread.setContextClassLoader(previous);
+                    pending.remove(config);
+                    permits.release();
+                }
+                return null;
+            }
+        });
+        if (pending.putIfAbsent(config, task) != null) {
+            permits.release();
+            return false;
+        }
+        executor.execute(task);
+        return true;
+    }
+
+    private void load(
+            final Class<?> testClass,
+            final MergedContextConfiguration config,
+            final ContextCache contextCache) throws Exception {
+        LOGGER.debug("Pre-warming context of test class [{}]", testClass.getName());
+        final long start = System.nanoTime();
+        final long heapBefore = HeapAwareContextEvictor.getUsedHeap();
+        final ApplicationContext context = ContextCaches.loadUncached(config);
+        final long estimatedBytes = HeapAwareContextEvictor.getUsedHeap() - heapBefore;
+
+        // Spring's loader delegate also synchronizes on the cache
+        synchronized (contextCache) {
+            if (!contextCache.contains(config)) {
+                contextCache.put(config, context);
+                prewarmed.incrementAndGet();
+                HeapAwareContextEvictor.getDefault().recordLoad(config, estimatedBytes);
+                LOGGER.debug(
+                        "Pre-warmed context of test class [{}] in {}ms",
+                        testClass.getName(),
+                        Long.valueOf((System.nanoTime() - start) / 1000000L));
+                return;
+            }
+        }
+
+        // someone else loaded it first
+        if (context instanceof ConfigurableApplicationContext) {
+            ((ConfigurableApplicationContext) context).close();
+        }
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import com.arakelian.spring.test.perf.TestTimings;
+
+/**
+ * Assigns test classes to a fixed number of shards, for example one per forked JVM, so that
+ * classes which share an {@link org.springframework.context.ApplicationContext} run in the same
+ * shard and each context is loaded by only one of them.
+ *
+ * <p>
+ * Classes are grouped by context key, exactly as {@link ContextOrdering} groups them. The groups
+ * are then assigned to shards longest first, each to the shard with the least work so far, with
+ * the duration of each class taken from the {@link TestTimings} reports of a previous run listed in
+ * the {@value #TIMINGS_PROPERTY} system property. Classes without a recorded duration count as the
+ * mean of the known durations, and every class counts the same when no reports are listed.
+ * </p>
+ *
+ * <p>
+ * Every shard must compute the same assignment, so the assignment only depends on the names of
+ * the test classes, their context keys and the timing reports: classes are sorted by name before
+ * they are grouped, and ties are broken by name. The reports written by the running build are
+ * never read, since shards that start while another shard is still writing them would disagree;
+ * point {@value #TIMINGS_PROPERTY} at a copy of the reports of a previous run, separated by
+ * commas.
+ * </p>
+ */
+public final class ContextSharding {
+    /** Test classes that share a context, and their estimated duration **/
+    private static final class Group {
+        private final List<Class<?>> classes;
+        private final long millis;
+
+        private Group(final List<Class<?>> classes, final long millis) {
+            this.classes = classes;
+            this.millis = millis;
+        }
+    }
+
+    /** System property with the zero-based index of the shard to run **/
+    public static final String SHARD_INDEX_PROPERTY = "spring.test.shard.index";
+
+    /** System property with the number of shards **/
+    public static final String SHARD_COUNT_PROPERTY = "spring.test.shard.count";
+
+    /** System property with the timing reports used to balance shards, separated by commas **/
+    public static final String TIMINGS_PROPERTY = "spring.test.shard.timings";
+
+    /** Duration assumed for every class when no durations were recorded **/
+    private static final long DEFAULT_CLASS_MILLIS = 1000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContextSharding.class);
+
+    private static final Comparator<Class<?>> BY_NAME = new Comparator<Class<?>>() {
+        @Override
+        public int compare(final Class<?> lhs, final Class<?> rhs) {
+            return lhs.getName().compareTo(rhs.getName());
+        }
+    };
+
+    private static final Comparator<Group> LONGEST_FIRST = new Comparator<Group>() {
+        @Override
+        public int compare(final Group lhs, final Group rhs) {
+            final int result = Long.compare(rhs.millis, lhs.millis);
+            return result != 0 ? result : BY_NAME.compare(lhs.classes.get(0), rhs.classes.get(0));
+        }
+    };
+
+    /**
+     * Returns the number of shards, from the {@value #SHARD_COUNT_PROPERTY} system property.
+     *
+     * @return number of shards, or 1 if tests are not sharded
+     */
+    public static int getConfiguredShardCount() {
+        final int count = Integer.getInteger(SHARD_COUNT_PROPERTY, 1).intValue();
+        Assert.isTrue(count > 0, SHARD_COUNT_PROPERTY + " must be positive");
+        return count;
+    }
+
+    /**
+     * Returns the index of the shard to run, from the {@value #SHARD_INDEX_PROPERTY} system
+     * property.
+     *
+     * @return zero-based index of the shard to run
+     */
+    public static int getConfiguredShardIndex() {
+        final int index = Integer.getInteger(SHARD_INDEX_PROPERTY, 0).intValue();
+        Assert.isTrue(
+                index >= 0 && index < getConfiguredShardCount(),
+                SHARD_INDEX_PROPERTY + " must be between 0 and " + SHARD_COUNT_PROPERTY + " - 1");
+        return index;
+    }
+
+    private static long getMeanMillis(final List<Class<?>> testClasses, final Map<String, Long> classMillis) {
+        long total = 0;
+        int known = 0;
+        for (final Class<?> testClass : testClasses) {
+            final Long millis = classMillis.get(testClass.getName());
+            if (millis != null) {
+                total += millis.longValue();
+                known++;
+            }
+        }
+        return known != 0 ? Math.max(1, total / known) : DEFAULT_CLASS_MILLIS;
+    }
+
+    /**
+     * Returns the recorded duration of each test class, from the reports listed in the
+     * {@value #TIMINGS_PROPERTY} system property. When a class appears in several reports, its
+     * longest duration is used.
+     *
+     * @return milliseconds keyed by test class name; empty if no report is listed or readable
+     */
+    public static Map<String, Long> readTimings() {
+        final Map<String, Long> millis = new HashMap<>();
+        final String property = System.getProperty(TIMINGS_PROPERTY);
+        if (StringUtils.isBlank(property)) {
+            // durations are uniform
+            return millis;
+        }
+
+        final List<File> files = new ArrayList<>();
+        for (final String path : StringUtils.split(property, ',')) {
+            if (!StringUtils.isBlank(path)) {
+                files.add(new File(path.trim()));
+            }
+        }
+        for (final File file : files) {
+            try {
+                for (final Map.Entry<String, Long> entry : TestTimings.readClassMillis(file).entrySet()) {
+                    final Long previous = millis.get(entry.getKey());
+                    if (previous == null || previous.longValue() < entry.getValue().longValue()) {
+                        millis.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            } catch (final IOException e) {
+                LOGGER.warn("Unable to read test timings from {}; shards may be unbalanced", file, e);
+            }
+        }
+        return millis;
+    }
+
+    /**
+     * Assigns the given test classes to the number of shards set by the
+     * {@value #SHARD_COUNT_PROPERTY} system property, balanced with {@link #readTimings()}.
+     *
+     * @param testClasses
+     *            test classes
+     * @return assignment of the test classes to shards
+     */
+    public static ContextSharding of(final List<Class<?>> testClasses) {
+        return new ContextSharding(testClasses, getConfiguredShardCount(), readTimings());
+    }
+
+    private final List<List<Class<?>>> shards;
+
+    private final long[] shardMillis;
+
+    private final int[] shardContexts;
+
+    private final Map<Class<?>, Integer> shardOf = new IdentityHashMap<>();
+
+    public ContextSharding(
+            final List<Class<?>> testClasses,
+            final int shardCount,
+            final Map<String, Long> classMillis) {
+        Assert.notNull(testClasses, "testClasses must not be null");
+        Assert.isTrue(shardCount > 0, "shardCount must be positive");
+        Assert.notNull(classMillis, "classMillis must not be null");
+
+        final List<Class<?>> sorted = new ArrayList<>(testClasses);
+        Collections.sort(sorted, BY_NAME);
+
+        final long defaultMillis = getMeanMillis(sorted, classMillis);
+        final List<Group> groups = new ArrayList<>();
+        for (final List<Class<?>> classes : ContextOrdering.of(sorted).getGroups()) {
+            long millis = 0;
+            for (final Class<?> testClass : classes) {
+                final Long recorded = classMillis.get(testClass.getName());
+                millis += recorded != null ? recorded.longValue() : defaultMillis;
+            }
+            groups.add(new Group(classes, millis));
+        }
+
+        // longest processing time first: each group goes to the least loaded shard
+        final List<Group> longestFirst = new ArrayList<>(groups);
+        Collections.sort(longestFirst, LONGEST_FIRST);
+        shardMillis = new long[shardCount];
+        shardContexts = new int[shardCount];
+        final Map<Group, Integer> assignment = new IdentityHashMap<>();
+        for (final Group group : longestFirst) {
+            int shard = 0;
+            for (int i = 1; i < shardCount; i++) {
+                if (shardMillis[i] < shardMillis[shard]) {
+                    shard = i;
+                }
+            }
+            shardMillis[shard] += group.millis;
+            shardContexts[shard]++;
+            assignment.put(group, Integer.valueOf(shard));
+        }
+
+        // within a shard, groups keep the order of their first class name
+        final List<List<Class<?>>> shardList = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shardList.add(new ArrayList<Class<?>>());
+        }
+        for (final Group group : groups) {
+            final Integer shard = assignment.get(group);
+            shardList.get(shard.intValue()).addAll(group.classes);
+            for (final Class<?> testClass : group.classes) {
+                shardOf.put(testClass, shard);
+            }
+        }
+        for (int i = 0; i < shardCount; i++) {
+            shardList.set(i, Collections.unmodifiableList(shardList.get(i)));
+        }
+        shards = Collections.unmodifiableList(shardList);
+    }
+
+    /**
+     * Returns the estimated duration of the given shard.
+     *
+     * @param index
+     *            zero-based shard index
+     * @return estimated duration of the shard, in milliseconds
+     */
+    public long getEstimatedMillis(final int index) {
+        return shardMillis[index];
+    }
+
+    /**
+     * Returns the test classes assigned to the given shard, grouped by shared context.
+     *
+     * @param index
+     *            zero-based shard index
+     * @return test classes assigned to the shard
+     */
+    public List<Class<?>> getShard(final int index) {
+        return shards.get(index);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Returns the number of distinct contexts used by the given shard.
+     *
+     * @param index
+     *            zero-based shard index
+     * @return number of distinct contexts used by the shard
+     */
+    public int getShardContexts(final int index) {
+        return shardContexts[index];
+    }
+
+    /**
+     * Returns the shard that the given test class was assigned to.
+     *
+     * @param testClass
+     *            test class
+     * @return zero-based shard index, or -1 if the class was not assigned
+     */
+    public int getShardOf(final Class<?> testClass) {
+        final Integer shard = shardOf.get(testClass);
+        return shard != null ? shard.intValue() : -1;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("ContextSharding [");
+        for (int i = 0, size = shards.size(); i < size; i++) {
+            if (i != 0) {
+                builder.append(", ");
+            }
+            builder.append(i).append("={classes=").append(shards.get(i).size());
+            builder.append(", contexts=").append(shardContexts[i]);
+            builder.append(", estimatedMillis=").append(shardMillis[i]).append('}');
+        }
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationFilter;
+import javax.management.NotificationListener;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.annotation.DirtiesContext.HierarchyMode;
+import org.springframework.test.context.MergedContextConfiguration;
+import org.springframework.test.context.cache.ContextCache;
+import org.springframework.util.Assert;
+
+import com.arakelian.spring.test.util.ByteSizes;
+
+/**
+ * Evicts least recently used contexts from Spring's context cache when they use too much heap.
+ *
+ * <p>
+ * Spring's context cache is bounded by a number of contexts, which does not help when a few
+ * contexts hold hundreds of megabytes each. This class adds two memory-based limits:
+ * </p>
+ * <ul>
+ * <li>a byte budget, set with the {@value #MAX_BYTES_PROPERTY} system property (for example
+ * <code>512m</code>). The size of each context is estimated from the growth of the heap while it
+ * was loaded, so it is approximate.</li>
+ * <li>a heap threshold, set with the {@value #HEAP_THRESHOLD_PROPERTY} system property as a
+ * fraction of the maximum size of the tenured generation (for example <code>0.85</code>; disabled
+ * by default). When the tenured generation is still above this threshold after a garbage
+ * collection, the JVM sends a {@link MemoryNotificationInfo#MEMORY_COLLECTION_THRESHOLD_EXCEEDED}
+ * notification, and idle contexts are evicted at the end of the next test class. Enabling it sets
+ * the collection usage threshold of the tenured memory pool, which is global JVM state.</li>
+ * </ul>
+ *
+ * <p>
+ * Contexts are only evicted between test classes, and never while a test class is using them.
+ * </p>
+ */
+public final class HeapAwareContextEvictor {
+    private static final class Entry {
+        private final MergedContextConfiguration config;
+        private long estimatedBytes;
+        private long lastUsed;
+        private int users;
+
+        private Entry(final MergedContextConfiguration config) {
+            this.config = config;
+        }
+    }
+
+    private static final class HeapPressureFilter implements NotificationFilter {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean isNotificationEnabled(final Notification notification) {
+            return MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType());
+        }
+    }
+
+    private final class HeapPressureListener implements NotificationListener {
+        @Override
+        public void handleNotification(final Notification notification, final Object handback) {
+            LOGGER.debug("Heap usage exceeded {}% after garbage collection", percent(heapThreshold));
+            heapPressure = true;
+        }
+    }
+
+    /** System property that sets the byte budget of cached contexts **/
+    public static final String MAX_BYTES_PROPERTY = "spring.test.context.cache.maxBytes";
+
+    /** System property that sets the fraction of heap that triggers eviction **/
+    public static final String HEAP_THRESHOLD_PROPERTY = "spring.test.context.cache.heapThreshold";
+
+    /** Default fraction of heap that triggers eviction; zero disables it **/
+    public static final double DEFAULT_HEAP_THRESHOLD = 0;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HeapAwareContextEvictor.class);
+
+    private static final HeapAwareContextEvictor DEFAULT = new HeapAwareContextEvictor(
+            ByteSizes.getBytes(MAX_BYTES_PROPERTY, 0),
+            parseThreshold(System.getProperty(HEAP_THRESHOLD_PROPERTY)));
+
+    /**
+     * Returns the evictor shared by {@link com.arakelian.spring.test.rule.SpringClassRule} and the
+     * runners in this library.
+     *
+     * @return the shared evictor
+     */
+    public static HeapAwareContextEvictor getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the number of bytes currently used by the heap.
+     *
+     * @return number of bytes currently used by the heap
+     */
+    public static long getUsedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    static double parseThreshold(final String value) {
+        if (StringUtils.isBlank(value)) {
+            return DEFAULT_HEAP_THRESHOLD;
+        }
+        final double threshold = Double.parseDouble(value.trim());
+        Assert.isTrue(threshold >= 0 && threshold < 1, HEAP_THRESHOLD_PROPERTY + " must be between 0 and 1");
+        return threshold;
+    }
+
+    private static String describe(final MergedContextConfiguration config) {
+        final StringBuilder buf = new StringBuilder();
+        buf.append(config.getTestClass().getSimpleName());
+        if (config.hasClasses()) {
+            buf.append(" classes=").append(Arrays.toString(config.getClasses()));
+        }
+        if (config.hasLocations()) {
+            buf.append(" locations=").append(Arrays.toString(config.getLocations()));
+        }
+        buf.append(" profiles=").append(Arrays.toString(config.getActiveProfiles()));
+        return buf.toString();
+    }
+
+    private static String percent(final double fraction) {
+        return Long.toString(Math.round(fraction * 100));
+    }
+
+    private final long maxBytes;
+
+    private final double heapThreshold;
+
+    /** Tracked contexts; guarded by this **/
+    private final Map<MergedContextConfiguration, Entry> entries = new HashMap<>();
+
+    /** Context in use by each running test class; guarded by this **/
+    private final Map<Class<?>, Entry> acquired = new IdentityHashMap<>();
+
+    /** Logical clock for least-recently-used ordering; guarded by this **/
+    private long clock;
+
+    private volatile boolean heapPressure;
+
+    private int evictions;
+
+    public HeapAwareContextEvictor(final long maxBytes, final double heapThreshold) {
+        Assert.isTrue(maxBytes >= 0, "maxBytes must be non-negative");
+        this.maxBytes = maxBytes;
+        this.heapThreshold = heapThreshold;
+        if (heapThreshold > 0) {
+            registerHeapPressureListener();
+        }
+    }
+
+    /**
+     * Records that the given test class is about to use the context with the given configuration.
+     *
+     * @param testClass
+     *            test class
+     * @param config
+     *            configuration of the context used by the test class
+     * @param estimatedBytes
+     *            estimated size of the context if it was just loaded, or a negative number if it
+     *            came from the cache
+     */
+    public synchronized void acquire(
+            final Class<?> testClass,
+            final MergedContextConfiguration config,
+            final long estimatedBytes) {
+        final Entry entry = getEntry(config);
+        if (estimatedBytes >= 0) {
+            entry.estimatedBytes = estimatedBytes;
+        }
+        entry.lastUsed = ++clock;
+        entry.users++;
+        final Entry previous = acquired.put(testClass, entry);
+        if (previous != null) {
+            previous.users--;
+        }
+    }
+
+    public synchronized int getEvictionCount() {
+        return evictions;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Records the estimated size of a context that was loaded outside of a test class, for
+     * example by the {@link ContextPrewarmer}.
+     *
+     * @param config
+     *            configuration of the context
+     * @param estimatedBytes
+     *            estimated size of the context
+     */
+    public synchronized void recordLoad(final MergedContextConfiguration config, final long estimatedBytes) {
+        final Entry entry = getEntry(config);
+        entry.estimatedBytes = Math.max(0, estimatedBytes);
+        entry.lastUsed = ++clock;
+    }
+
+    /**
+     * Records that the given test class has finished, and evicts idle contexts if the byte budget
+     * is exceeded or the heap is under pressure.
+     *
+     * @param testClass
+     *            test class that has finished
+     */
+    public void release(final Class<?> testClass) {
+        synchronized (this) {
+            final Entry entry = acquired.remove(testClass);
+            if (entry == null) {
+                return;
+            }
+            entry.users--;
+        }
+        evictIfNecessary();
+    }
+
+    /**
+     * Evicts idle contexts, least recently used first, until the byte budget is met. If the heap is
+     * under pressure, idle contexts are evicted until at least half of the estimated bytes are
+     * released.
+     */
+    public synchronized void evictIfNecessary() {
+        final boolean pressure = heapPressure;
+        heapPressure = false;
+        if (maxBytes == 0 && !pressure) {
+            return;
+        }
+
+        final ContextCache contextCache = ContextCaches.getDefaultContextCache();
+        long totalBytes = 0;
+        final List<Entry> idle = new ArrayList<>();
+        synchronized (contextCache) {
+            for (final Iterator<Entry> it = entries.values().iterator(); it.hasNext();) {
+                final Entry entry = it.next();
+                if (!contextCache.contains(entry.config)) {
+                    // evicted by Spring, or closed by @DirtiesContext
+                    if (entry.users == 0) {
+                        it.remove();
+                    }
+                    continue;
+                }
+                totalBytes += entry.estimatedBytes;
+                if (entry.users == 0) {
+                    idle.add(entry);
+                }
+            }
+        }
+        Collections.sort(idle, new Comparator<Entry>() {
+            @Override
+            public int compare(final Entry e1, final Entry e2) {
+                return Long.compare(e1.lastUsed, e2.lastUsed);
+            }
+        });
+
+        final long target = pressure ? totalBytes / 2 : maxBytes;
+        for (int i = 0, size = idle.size(); i < size && (totalBytes > target || (pressure && i == 0)); i++) {
+            final Entry entry = idle.get(i);
+            final String reason = pressure
+                    ? "heap usage exceeded " + percent(heapThreshold) + "% of maximum after garbage collection"
+                    : "estimated size of cached contexts (" + ByteSizes.format(totalBytes)
+                            + ") exceeds budget of " + ByteSizes.format(maxBytes);
+            LOGGER.info(
+                    "Evicting context [{}] (~{}, last used {} classes ago): {}",
+                    describe(entry.config),
+                    ByteSizes.format(entry.estimatedBytes),
+                    Long.valueOf(clock - entry.lastUsed),
+                    reason);
+            synchronized (contextCache) {
+                if (contextCache.contains(entry.config)) {
+                    contextCache.remove(entry.config, HierarchyMode.CURRENT_LEVEL);
+                }
+            }
+            entries.remove(entry.config);
+            totalBytes -= entry.estimatedBytes;
+            evictions++;
+        }
+    }
+
+    private Entry getEntry(final MergedContextConfiguration config) {
+        Entry entry = entries.get(config);
+        if (entry == null) {
+            entry = new Entry(config);
+            entries.put(config, entry);
+        }
+        return entry;
+    }
+
+    private void registerHeapPressureListener() {
+        boolean registered = false;
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            // eden and survivor pools are often nearly full after a minor collection; only the
+            // tenured pool supports usage thresholds in HotSpot collectors
+            final long max = pool.getUsage().getMax();
+            if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()
+                    && pool.isCollectionUsageThresholdSupported() && max > 0) {
+                pool.setCollectionUsageThreshold((long) (max * heapThreshold));
+                LOGGER.debug("Monitoring collection usage of memory pool [{}]", pool.getName());
+                registered = true;
+            }
+        }
+        if (!registered) {
+            LOGGER.debug("Tenured memory pool does not support collection usage thresholds");
+            return;
+        }
+
+        final NotificationEmitter emitter = (NotificationEmitter) ManagementFactory.getMemoryMXBean();
+        emitter.addNotificationListener(new HeapPressureListener(), new HeapPressureFilter(), null);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ContextCustomizer;
+import org.springframework.test.context.MergedContextConfiguration;
+
+/**
+ * Marks singleton bean definitions as lazy, except for those explicitly listed as eager; see
+ * {@link com.arakelian.spring.test.annotation.LazyBeans}.
+ *
+ * <p>
+ * Customizers are part of the context cache key, so instances are equal when their eager beans
+ * are the same.
+ * </p>
+ */
+class LazyBeansContextCustomizer implements ContextCustomizer {
+    /**
+     * Runs after configuration classes have been processed, since bean factory post processors
+     * registered with the context run after bean definition registry post processors.
+     */
+    private static final class LazyInitPostProcessor implements BeanFactoryPostProcessor {
+        private final Set<String> eager;
+
+        private LazyInitPostProcessor(final Set<String> eager) {
+            this.eager = eager;
+        }
+
+        @Override
+        public void postProcessBeanFactory(final ConfigurableListableBeanFactory beanFactory) {
+            // post processors are always created at startup, whether lazy or not; don't allow
+            // eager init so that factory beans are not created just to determine their type
+            final Set<String> postProcessors = new HashSet<>();
+            postProcessors.addAll(
+                    Arrays.asList(beanFactory.getBeanNamesForType(BeanFactoryPostProcessor.class, true, false)));
+            postProcessors
+                    .addAll(Arrays.asList(beanFactory.getBeanNamesForType(BeanPostProcessor.class, true, false)));
+
+            int count = 0;
+            for (final String name : beanFactory.getBeanDefinitionNames()) {
+                if (eager.contains(name) || postProcessors.contains(name)) {
+                    continue;
+                }
+                final BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                if (definition.isSingleton() && !definition.isAbstract() && !definition.isLazyInit()
+                        && definition.getRole() == BeanDefinition.ROLE_APPLICATION) {
+                    definition.setLazyInit(true);
+                    count++;
+                }
+            }
+            LOGGER.debug("Marked {} of {} beans as lazy", count, beanFactory.getBeanDefinitionCount());
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LazyBeansContextCustomizer.class);
+
+    private final Set<String> eager;
+
+    LazyBeansContextCustomizer(final String[] eager) {
+        this.eager = new TreeSet<>(Arrays.asList(eager));
+    }
+
+    @Override
+    public void customizeContext(
+            final ConfigurableApplicationContext context,
+            final MergedContextConfiguration mergedConfig) {
+        context.addBeanFactoryPostProcessor(new LazyInitPostProcessor(eager));
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != getClass()) {
+            return false;
+        }
+        return eager.equals(((LazyBeansContextCustomizer) obj).eager);
+    }
+
+    @Override
+    public int hashCode() {
+        return eager.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "LazyBeansContextCustomizer[eager=" + eager + "]";
+    }
+}
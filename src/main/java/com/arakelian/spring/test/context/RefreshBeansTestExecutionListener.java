@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.test.context.TestContext;
+import org.springframework.test.context.support.AbstractTestExecutionListener;
+import org.springframework.util.Assert;
+
+import com.arakelian.spring.test.annotation.RefreshBeans;
+
+/**
+ * Refreshes beans named by {@link RefreshBeans} after a test method or test class, and counts the
+ * full context reloads that this avoided. Registered in <code>META-INF/spring.factories</code>.
+ */
+public class RefreshBeansTestExecutionListener extends AbstractTestExecutionListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RefreshBeansTestExecutionListener.class);
+
+    private static final AtomicInteger RELOADS_AVOIDED = new AtomicInteger();
+
+    /**
+     * Returns the number of times beans were refreshed instead of reloading a whole context.
+     *
+     * @return number of full context reloads avoided
+     */
+    public static int getReloadsAvoided() {
+        return RELOADS_AVOIDED.get();
+    }
+
+    private static void collectDependents(
+            final ConfigurableListableBeanFactory beanFactory,
+            final String beanName,
+            final Set<String> names) {
+        // dependents include test instances, which are not beans
+        if (beanFactory.containsBeanDefinition(beanName) && names.add(beanName)) {
+            for (final String dependent : beanFactory.getDependentBeans(beanName)) {
+                collectDependents(beanFactory, dependent, names);
+            }
+        }
+    }
+
+    @Override
+    public void afterTestClass(final TestContext testContext) {
+        final RefreshBeans refreshBeans = AnnotationUtils
+                .findAnnotation(testContext.getTestClass(), RefreshBeans.class);
+        if (refreshBeans != null) {
+            refresh(testContext, refreshBeans);
+        }
+    }
+
+    @Override
+    public void afterTestMethod(final TestContext testContext) {
+        final RefreshBeans refreshBeans = AnnotatedElementUtils
+                .findMergedAnnotation(testContext.getTestMethod(), RefreshBeans.class);
+        if (refreshBeans != null) {
+            refresh(testContext, refreshBeans);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // same position as DirtiesContextTestExecutionListener
+        return 3000;
+    }
+
+    private void refresh(final TestContext testContext, final RefreshBeans refreshBeans) {
+        final long start = System.nanoTime();
+        final ApplicationContext applicationContext = testContext.getApplicationContext();
+        Assert.state(
+                applicationContext instanceof ConfigurableApplicationContext,
+                "@RefreshBeans requires a ConfigurableApplicationContext");
+        final ConfigurableListableBeanFactory beanFactory = ((ConfigurableApplicationContext) applicationContext)
+                .getBeanFactory();
+        Assert.state(
+                beanFactory instanceof DefaultListableBeanFactory,
+                "@RefreshBeans requires a DefaultListableBeanFactory");
+
+        // collect names before destroying anything, since destroying a bean forgets its dependents
+        final Set<String> names = new LinkedHashSet<>();
+        for (final String name : refreshBeans.value()) {
+            final String beanName = BeanFactoryUtils.transformedBeanName(name);
+            Assert.isTrue(beanFactory.containsBeanDefinition(beanName), "No bean named '" + beanName + "'");
+            collectDependents(beanFactory, beanName, names);
+        }
+
+        // dependents are destroyed first, and removed from the context along with the bean
+        for (final String name : refreshBeans.value()) {
+            ((DefaultListableBeanFactory) beanFactory).destroySingleton(BeanFactoryUtils.transformedBeanName(name));
+        }
+
+        // lazy beans will be created again on next use
+        int created = 0;
+        for (final String name : names) {
+            final BeanDefinition definition = beanFactory.getMergedBeanDefinition(name);
+            if (definition.isSingleton() && !definition.isAbstract() && !definition.isLazyInit()) {
+                beanFactory.getBean(name);
+                created++;
+            }
+        }
+
+        int scoped = 0;
+        if (refreshBeans.testScope()) {
+            final TestScope testScope = TestScope.forContext(applicationContext);
+            Assert.state(testScope != null, "Test scope is not registered");
+            scoped = testScope.reset();
+        }
+
+        final int avoided = RELOADS_AVOIDED.incrementAndGet();
+        LOGGER.info(
+                "Refreshed {} beans ({} created again) and {} test scoped beans in {}ms instead of reloading context "
+                        + "for {}; {} full reloads avoided",
+                names.size(),
+                created,
+                scoped,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                testContext.getTestClass().getName(),
+                avoided);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ConfigurationClassPostProcessor;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.test.context.ContextCustomizer;
+import org.springframework.test.context.MergedContextConfiguration;
+
+/**
+ * Makes component scanning resolve class files through a {@link CachingResourcePatternResolver},
+ * and reports the time saved listing class files once the context is refreshed. Reading the
+ * metadata of the listed classes is not cached, so the overall saving in context startup is
+ * smaller.
+ *
+ * <p>
+ * All instances are equal, so that the cache does not change how contexts are cached.
+ * </p>
+ */
+class ScanCacheContextCustomizer implements ContextCustomizer {
+    /**
+     * Replaces the resource loader of the configuration class post processor, which creates the
+     * component scanners. This has to happen after the post processor is initialized, since the
+     * application context sets itself as the resource loader beforehand.
+     */
+    private static final class ResourceLoaderReplacer
+            implements BeanPostProcessor, ApplicationListener<ContextRefreshedEvent> {
+        private final ConfigurableApplicationContext context;
+        private final MergedContextConfiguration mergedConfig;
+        private final ComponentScanCache cache;
+        private final CachingResourcePatternResolver resolver;
+
+        private ResourceLoaderReplacer(
+                final ConfigurableApplicationContext context,
+                final MergedContextConfiguration mergedConfig) {
+            this.context = context;
+            this.mergedConfig = mergedConfig;
+            this.cache = ComponentScanCache.forClassLoader(context.getClassLoader());
+            this.resolver = new CachingResourcePatternResolver(context, cache);
+        }
+
+        @Override
+        public void onApplicationEvent(final ContextRefreshedEvent event) {
+            if (event.getApplicationContext() != context) {
+                return;
+            }
+            if (resolver.getHits() != 0 || resolver.getMisses() != 0) {
+                // fingerprinting stats every file on the classpath, much like the listing it replaces
+                LOGGER.info(
+                        "Component scan cache saved {}ms listing class files ({} of {} patterns cached) loading "
+                                + "context for {}; fingerprinting the classpath took {}ms once per JVM, and class "
+                                + "metadata is not cached",
+                        TimeUnit.NANOSECONDS.toMillis(resolver.getSavedNanos()),
+                        resolver.getHits(),
+                        resolver.getHits() + resolver.getMisses(),
+                        mergedConfig.getTestClass().getName(),
+                        TimeUnit.NANOSECONDS.toMillis(cache.getFingerprintNanos()));
+            }
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+            if (bean instanceof ConfigurationClassPostProcessor) {
+                ((ConfigurationClassPostProcessor) bean).setResourceLoader(resolver);
+            }
+            return bean;
+        }
+
+        @Override
+        public Object postProcessBeforeInitialization(final Object bean, final String beanName) {
+            return bean;
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScanCacheContextCustomizer.class);
+
+    @Override
+    public void customizeContext(
+            final ConfigurableApplicationContext context,
+            final MergedContextConfiguration mergedConfig) {
+        final ResourceLoaderReplacer replacer = new ResourceLoaderReplacer(context, mergedConfig);
+        context.getBeanFactory().addBeanPostProcessor(replacer);
+        context.addApplicationListener(replacer);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return obj != null && obj.getClass() == getClass();
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.util.List;
+
+import org.springframework.test.context.ContextConfigurationAttributes;
+import org.springframework.test.context.ContextCustomizer;
+import org.springframework.test.context.ContextCustomizerFactory;
+
+/**
+ * Adds a {@link ScanCacheContextCustomizer} to every test context when the
+ * {@value #ENABLED_PROPERTY} system property is <code>true</code>. Registered in
+ * <code>META-INF/spring.factories</code>.
+ */
+public class ScanCacheContextCustomizerFactory implements ContextCustomizerFactory {
+    /** System property that enables the persistent component scan cache **/
+    public static final String ENABLED_PROPERTY = "spring.test.scanCache";
+
+    @Override
+    public ContextCustomizer createContextCustomizer(
+            final Class<?> testClass,
+            final List<ContextConfigurationAttributes> configAttributes) {
+        if (!Boolean.getBoolean(ENABLED_PROPERTY)) {
+            return null;
+        }
+        return new ScanCacheContextCustomizer();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.target.HotSwappableTargetSource;
+import org.springframework.context.ApplicationContext;
+import org.springframework.util.Assert;
+
+/**
+ * Holds the swappable proxies of an application context created for a test class annotated with
+ * {@link com.arakelian.spring.test.annotation.SwappableBeans}, and the beans they originally
+ * pointed to.
+ */
+public final class SwappableBeanRegistry {
+    /** Swappable proxy for one bean **/
+    private static final class Swappable {
+        private final String beanName;
+        private final Object original;
+        private final HotSwappableTargetSource targetSource;
+
+        private Swappable(final Class<?> type, final String beanName, final Object original) {
+            this.beanName = beanName;
+            this.original = original;
+            this.targetSource = new HotSwappableTargetSource(original) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public synchronized Class<?> getTargetClass() {
+                    // proxy the swappable type, so that replacements need not extend the bean's
+                    // class
+                    return type;
+                }
+            };
+        }
+    }
+
+    /** Name of the registry bean in the application context **/
+    public static final String BEAN_NAME = SwappableBeanRegistry.class.getName();
+
+    /**
+     * Returns the registry of the given application context.
+     *
+     * @param applicationContext
+     *            application context
+     * @return the registry, or null if the context has no swappable beans
+     */
+    public static SwappableBeanRegistry forContext(final ApplicationContext applicationContext) {
+        if (applicationContext == null || !applicationContext.containsBean(BEAN_NAME)) {
+            return null;
+        }
+        return applicationContext.getBean(BEAN_NAME, SwappableBeanRegistry.class);
+    }
+
+    private final Map<Class<?>, Swappable> swappables = new LinkedHashMap<>();
+
+    private boolean swapped;
+
+    SwappableBeanRegistry() {
+    }
+
+    /**
+     * Returns the bean of the given type, as it was before any swap.
+     *
+     * @param <T>
+     *            bean type
+     * @param type
+     *            bean type, as listed in the annotation
+     * @return original bean
+     * @throws IllegalArgumentException
+     *             if the type is not swappable
+     */
+    public synchronized <T> T getOriginal(final Class<T> type) {
+        return type.cast(getSwappable(type).original);
+    }
+
+    /**
+     * Returns true if any bean is currently replaced.
+     *
+     * @return true if any bean is currently replaced
+     */
+    public synchronized boolean isSwapped() {
+        return swapped;
+    }
+
+    /**
+     * Points every swappable proxy back to its original bean.
+     */
+    public synchronized void reset() {
+        if (!swapped) {
+            return;
+        }
+        for (final Swappable swappable : swappables.values()) {
+            swappable.targetSource.swap(swappable.original);
+        }
+        swapped = false;
+    }
+
+    /**
+     * Replaces the bean of the given type, until the next {@link #reset()}.
+     *
+     * @param <T>
+     *            bean type
+     * @param type
+     *            bean type, as listed in the annotation
+     * @param replacement
+     *            replacement, such as a mock or a spy
+     * @return the bean that was replaced
+     * @throws IllegalArgumentException
+     *             if the type is not swappable
+     */
+    public synchronized <T> T swap(final Class<T> type, final T replacement) {
+        Assert.notNull(replacement, "replacement must not be null");
+        final Swappable swappable = getSwappable(type);
+        swapped = true;
+        return type.cast(swappable.targetSource.swap(replacement));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "SwappableBeanRegistry" + swappables.keySet();
+    }
+
+    /**
+     * Wraps a bean in a swappable proxy. Wrapping a new instance of the same bean, for example
+     * after {@link com.arakelian.spring.test.annotation.RefreshBeans} recreated it, replaces the
+     * previous proxy's original.
+     *
+     * @param type
+     *            swappable type that the bean matches
+     * @param beanName
+     *            bean name
+     * @param bean
+     *            bean
+     * @return swappable proxy
+     */
+    synchronized Object wrap(final Class<?> type, final String beanName, final Object bean) {
+        final Swappable existing = swappables.get(type);
+        if (existing != null && !existing.beanName.equals(beanName)) {
+            throw new IllegalStateException("Swappable type " + type.getName() + " matches more than one bean: "
+                    + existing.beanName + ", " + beanName);
+        }
+
+        final Swappable swappable = new Swappable(type, beanName, bean);
+        final ProxyFactory proxyFactory = new ProxyFactory();
+        proxyFactory.setTargetSource(swappable.targetSource);
+        if (type.isInterface()) {
+            proxyFactory.addInterface(type);
+        } else {
+            proxyFactory.setProxyTargetClass(true);
+        }
+        final Object proxy = proxyFactory.getProxy(bean.getClass().getClassLoader());
+        swappables.put(type, swappable);
+        return proxy;
+    }
+
+    private Swappable getSwappable(final Class<?> type) {
+        final Swappable swappable = swappables.get(type);
+        Assert.isTrue(swappable != null, type.getName() + " is not swappable; swappable types are "
+                + swappables.keySet());
+        return swappable;
+    }
+}
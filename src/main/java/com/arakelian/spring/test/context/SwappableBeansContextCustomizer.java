@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.test.context.ContextCustomizer;
+import org.springframework.test.context.MergedContextConfiguration;
+
+/**
+ * Wraps beans of the swappable types in proxies managed by a {@link SwappableBeanRegistry}, which
+ * is registered as a bean of the context.
+ *
+ * <p>
+ * Customizers are part of the context cache key, so instances are equal when their swappable
+ * types are the same.
+ * </p>
+ */
+class SwappableBeansContextCustomizer implements ContextCustomizer {
+    /**
+     * Wraps beans once they are fully initialized, after every other post-processor, so that the
+     * swappable proxy targets the bean as advised by auto-proxy creators (transactions, caching,
+     * async execution, validation). Beans exposed early to resolve a circular reference are wrapped
+     * at that point instead, like auto-proxy creators do.
+     **/
+    static final class SwappableBeanPostProcessor extends InstantiationAwareBeanPostProcessorAdapter
+            implements Ordered {
+        private final Set<Class<?>> types;
+        private final SwappableBeanRegistry registry;
+
+        /** Names of beans that were wrapped when exposed early **/
+        private final Set<String> earlyReferences = Collections
+                .newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+        SwappableBeanPostProcessor(final Set<Class<?>> types, final SwappableBeanRegistry registry) {
+            this.types = types;
+            this.registry = registry;
+        }
+
+        @Override
+        public Object getEarlyBeanReference(final Object bean, final String beanName) {
+            earlyReferences.add(beanName);
+            return wrapIfSwappable(bean, beanName);
+        }
+
+        @Override
+        public int getOrder() {
+            return LOWEST_PRECEDENCE;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+            if (earlyReferences.remove(beanName)) {
+                // already wrapped; the container exposes the early reference, while we are given the
+                // bean as it was before earlier post-processors advised it
+                return bean;
+            }
+            return wrapIfSwappable(bean, beanName);
+        }
+
+        private Object wrapIfSwappable(final Object bean, final String beanName) {
+            if (bean == registry) {
+                return bean;
+            }
+            for (final Class<?> type : types) {
+                if (type.isInstance(bean)) {
+                    return registry.wrap(type, beanName, bean);
+                }
+            }
+            return bean;
+        }
+    }
+
+    /** Name of the post-processor bean in the application context **/
+    private static final String POST_PROCESSOR_BEAN_NAME = SwappableBeanPostProcessor.class.getName();
+
+    private final Set<Class<?>> types;
+
+    SwappableBeansContextCustomizer(final Class<?>[] types) {
+        this.types = new LinkedHashSet<>(Arrays.asList(types));
+    }
+
+    @Override
+    public void customizeContext(
+            final ConfigurableApplicationContext context,
+            final MergedContextConfiguration mergedConfig) {
+        final SwappableBeanRegistry registry = new SwappableBeanRegistry();
+        context.getBeanFactory().registerSingleton(SwappableBeanRegistry.BEAN_NAME, registry);
+
+        // registered once configuration classes are parsed, so that the post-processor is ordered
+        // after auto-proxy creators that have the same order
+        context.addBeanFactoryPostProcessor(new BeanFactoryPostProcessor() {
+            @Override
+            public void postProcessBeanFactory(final ConfigurableListableBeanFactory beanFactory) {
+                final RootBeanDefinition definition = new RootBeanDefinition(SwappableBeanPostProcessor.class);
+                definition.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
+                definition.getConstructorArgumentValues().addIndexedArgumentValue(0, types);
+                definition.getConstructorArgumentValues().addIndexedArgumentValue(1, registry);
+                ((BeanDefinitionRegistry) beanFactory).registerBeanDefinition(POST_PROCESSOR_BEAN_NAME, definition);
+            }
+        });
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != getClass()) {
+            return false;
+        }
+        return types.equals(((SwappableBeansContextCustomizer) obj).types);
+    }
+
+    @Override
+    public int hashCode() {
+        return types.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "SwappableBeansContextCustomizer" + types;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.util.List;
+
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.test.context.ContextConfigurationAttributes;
+import org.springframework.test.context.ContextCustomizer;
+import org.springframework.test.context.ContextCustomizerFactory;
+
+import com.arakelian.spring.test.annotation.SwappableBeans;
+
+/**
+ * Adds a {@link SwappableBeansContextCustomizer} to the contexts of test classes annotated with
+ * {@link SwappableBeans}. Registered in <code>META-INF/spring.factories</code>.
+ */
+public class SwappableBeansContextCustomizerFactory implements ContextCustomizerFactory {
+    @Override
+    public ContextCustomizer createContextCustomizer(
+            final Class<?> testClass,
+            final List<ContextConfigurationAttributes> configAttributes) {
+        final SwappableBeans swappableBeans = AnnotationUtils.findAnnotation(testClass, SwappableBeans.class);
+        if (swappableBeans == null) {
+            return null;
+        }
+        return new SwappableBeansContextCustomizer(swappableBeans.value());
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.test.context.TestContext;
+import org.springframework.test.context.support.AbstractTestExecutionListener;
+
+import com.arakelian.spring.test.annotation.SwappableBeans;
+
+/**
+ * Reverts beans replaced through a {@link SwappableBeanRegistry} after each test method, so that
+ * the next test method sees the original beans. Registered in
+ * <code>META-INF/spring.factories</code>.
+ */
+public class SwappableBeansTestExecutionListener extends AbstractTestExecutionListener {
+    @Override
+    public void afterTestMethod(final TestContext testContext) {
+        if (AnnotationUtils.findAnnotation(testContext.getTestClass(), SwappableBeans.class) == null) {
+            return;
+        }
+        final SwappableBeanRegistry registry = SwappableBeanRegistry.forContext(testContext.getApplicationContext());
+        if (registry != null) {
+            registry.reset();
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // after-callbacks run in reverse order, so a high precedence reverts the beans after other
+        // listeners, such as Mockito's reset listener, have finished with the test method
+        return Ordered.HIGHEST_PRECEDENCE + 100;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.Scope;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Bean scope, named {@value #NAME}, whose beans live until the scope is
+ * {@link #reset() reset}, e.g. by {@link com.arakelian.spring.test.annotation.RefreshBeans}. It is
+ * registered in every test context.
+ *
+ * <p>
+ * Beans in this scope that are injected into singletons must use a scoped proxy, e.g.
+ * <code>@Scope(value = TestScope.NAME, proxyMode = ScopedProxyMode.TARGET_CLASS)</code>.
+ * </p>
+ */
+public final class TestScope implements Scope {
+    /** Name of the scope **/
+    public static final String NAME = "test";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestScope.class);
+
+    /**
+     * Returns the test scope of the given application context.
+     *
+     * @param applicationContext
+     *            application context
+     * @return the test scope, or null if not registered
+     */
+    public static TestScope forContext(final ApplicationContext applicationContext) {
+        if (!(applicationContext instanceof ConfigurableApplicationContext)) {
+            return null;
+        }
+        final ConfigurableListableBeanFactory beanFactory = ((ConfigurableApplicationContext) applicationContext)
+                .getBeanFactory();
+        final Scope scope = beanFactory.getRegisteredScope(NAME);
+        return scope instanceof TestScope ? (TestScope) scope : null;
+    }
+
+    private final Map<String, Object> beans = new LinkedHashMap<>();
+
+    private final Map<String, Runnable> destructionCallbacks = new LinkedHashMap<>();
+
+    @Override
+    public synchronized Object get(final String name, final ObjectFactory<?> objectFactory) {
+        Object bean = beans.get(name);
+        if (bean == null) {
+            bean = objectFactory.getObject();
+            beans.put(name, bean);
+        }
+        return bean;
+    }
+
+    @Override
+    public String getConversationId() {
+        return NAME;
+    }
+
+    @Override
+    public synchronized void registerDestructionCallback(final String name, final Runnable callback) {
+        destructionCallbacks.put(name, callback);
+    }
+
+    @Override
+    public synchronized Object remove(final String name) {
+        destructionCallbacks.remove(name);
+        return beans.remove(name);
+    }
+
+    /**
+     * Destroys every bean in this scope, so that they are created again on next use.
+     *
+     * @return number of beans destroyed
+     */
+    public int reset() {
+        final List<Runnable> callbacks;
+        final int count;
+        synchronized (this) {
+            callbacks = new ArrayList<>(destructionCallbacks.values());
+            count = beans.size();
+            beans.clear();
+            destructionCallbacks.clear();
+        }
+        for (final Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (final RuntimeException e) {
+                LOGGER.warn("Destruction of test scoped bean failed", e);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Object resolveContextualObject(final String key) {
+        return null;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import java.util.List;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ContextConfigurationAttributes;
+import org.springframework.test.context.ContextCustomizer;
+import org.springframework.test.context.ContextCustomizerFactory;
+import org.springframework.test.context.MergedContextConfiguration;
+
+/**
+ * Registers the {@link TestScope} in every test context. Registered in
+ * <code>META-INF/spring.factories</code>.
+ */
+public class TestScopeContextCustomizerFactory implements ContextCustomizerFactory {
+    /** Registers the scope; all instances are equal, so that contexts are cached as before **/
+    private static final class TestScopeContextCustomizer implements ContextCustomizer {
+        @Override
+        public void customizeContext(
+                final ConfigurableApplicationContext context,
+                final MergedContextConfiguration mergedConfig) {
+            context.getBeanFactory().registerScope(TestScope.NAME, new TestScope());
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj != null && obj.getClass() == getClass();
+        }
+
+        @Override
+        public int hashCode() {
+            return getClass().hashCode();
+        }
+    }
+
+    private static final ContextCustomizer CUSTOMIZER = new TestScopeContextCustomizer();
+
+    @Override
+    public ContextCustomizer createContextCustomizer(
+            final Class<?> testClass,
+            final List<ContextConfigurationAttributes> configAttributes) {
+        return CUSTOMIZER;
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.daemon;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.arakelian.spring.test.context.ClasspathFingerprint;
+
+/**
+ * Long-lived JVM that runs tests on request from a {@link TestDaemonClient}, so that repeated
+ * runs of the same tests do not pay for JVM startup, class loading and Spring context loading.
+ *
+ * <p>
+ * Tests run in a class loader created from the classpath sent by the client; JUnit, Spring, this
+ * library and the tests are all loaded by it, so contexts cached by Spring's
+ * <code>ContextCache</code> stay warm from one run to the next. When the classpath or any jar or
+ * class file on it changes, as detected by {@link ClasspathFingerprint}, cached contexts are
+ * closed and the class loader is replaced.
+ * </p>
+ *
+ * <p>
+ * The daemon must be started with nothing but this library on its classpath, for example
+ * <code>java -cp spring-test-utils.jar com.arakelian.spring.test.daemon.TestDaemon</code>: libraries
+ * such as Log4J2 also look up classes through the system class loader, and would find two copies of
+ * themselves otherwise. For the same reason, the daemon only uses JDK classes, and writes its own
+ * messages to the console rather than a logger.
+ * </p>
+ *
+ * <p>
+ * The daemon only listens on the loopback interface, on the port set by the
+ * {@value #PORT_PROPERTY} system property (default {@value #DEFAULT_PORT}), and runs one request
+ * at a time. Clients must send each request line within {@value #REQUEST_TIMEOUT_MILLIS}ms, so
+ * that a connection that sends nothing cannot block the daemon. Output written by tests to
+ * <code>System.out</code> and <code>System.err</code> is sent to the client; log output stays on
+ * the daemon's console.
+ * </p>
+ *
+ * <p>
+ * Every request runs arbitrary code from the classpath it names, so the loopback interface alone
+ * is not enough: any local user or process could connect to it. At startup, the daemon generates
+ * a random token and writes it to a file that only the current user can read, set by the
+ * {@value #TOKEN_FILE_PROPERTY} system property (default
+ * <code>~/.spring-test-daemon-&lt;port&gt;.token</code>). The first line of every request must
+ * carry that token, and requests without it are rejected before anything else is read. The file
+ * is deleted when the daemon stops, and replaced when it starts again.
+ * </p>
+ */
+public final class TestDaemon {
+    /** System property with the port that the daemon listens on **/
+    public static final String PORT_PROPERTY = "spring.test.daemon.port";
+
+    /** Default port that the daemon listens on **/
+    public static final int DEFAULT_PORT = 7395;
+
+    /** System property with the file that the daemon writes its token to **/
+    public static final String TOKEN_FILE_PROPERTY = "spring.test.daemon.tokenFile";
+
+    /** First request line, with the token written to the token file **/
+    static final String TOKEN_COMMAND = "TOKEN ";
+
+    /** Number of random bytes in a token **/
+    private static final int TOKEN_BYTES = 32;
+
+    /** Request line with the classpath, separated by the platform path separator **/
+    static final String CLASSPATH_COMMAND = "CLASSPATH ";
+
+    /** Request line with a test class name, optionally followed by <code>#</code> and a method **/
+    static final String RUN_COMMAND = "RUN ";
+
+    /** Request line that ends a request **/
+    static final String END_COMMAND = "END";
+
+    /** Request that stops the daemon **/
+    static final String STOP_COMMAND = "STOP";
+
+    /** Last response line, followed by the exit code of the request **/
+    static final String EXIT_PREFIX = "\u0001EXIT ";
+
+    /** Time allowed for each request line, in milliseconds **/
+    private static final int REQUEST_TIMEOUT_MILLIS = 10_000;
+
+    private static final String WORKER_CLASS = "com.arakelian.spring.test.daemon.TestDaemonWorker";
+
+    /**
+     * Returns the port that the daemon listens on, from the {@value #PORT_PROPERTY} system
+     * property.
+     *
+     * @return port that the daemon listens on
+     */
+    public static int getPort() {
+        return Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT).intValue();
+    }
+
+    /**
+     * Returns the file that the daemon listening on the given port writes its token to, from the
+     * {@value #TOKEN_FILE_PROPERTY} system property.
+     *
+     * @param port
+     *            port that the daemon listens on
+     * @return file with the daemon's token
+     */
+    public static File getTokenFile(final int port) {
+        final String path = System.getProperty(TOKEN_FILE_PROPERTY);
+        return path != null && !path.trim().isEmpty()
+                ? new File(path.trim())
+                : new File(System.getProperty("user.home"), ".spring-test-daemon-" + port + ".token");
+    }
+
+    private static String generateToken() {
+        final byte[] bytes = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(bytes);
+        final StringBuilder token = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            token.append(Character.forDigit(b >> 4 & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return token.toString();
+    }
+
+    /**
+     * Starts a daemon, and returns once it is stopped by a client.
+     *
+     * @param args
+     *            ignored
+     * @throws IOException
+     *             if the daemon cannot listen on its port
+     */
+    public static void main(final String[] args) throws IOException {
+        new TestDaemon(getPort()).serve();
+
+        // contexts may have started non-daemon threads
+        System.exit(0);
+    }
+
+    private final int port;
+
+    /** Daemon console; System.out is redirected to the client while tests run **/
+    private final PrintStream console = System.out;
+
+    /** Class loader that tests run in; replaced when the classpath changes **/
+    private URLClassLoader loader;
+
+    private String loaderFingerprint;
+
+    private boolean stopped;
+
+    /** Token that every request must start with **/
+    private final String token = generateToken();
+
+    public TestDaemon(final int port) {
+        this.port = port;
+    }
+
+    private boolean isAuthorized(final String line) {
+        if (line == null || !line.startsWith(TOKEN_COMMAND)) {
+            return false;
+        }
+        // compare in constant time, so that the token cannot be guessed one character at a time
+        final byte[] expected = token.getBytes(StandardCharsets.UTF_8);
+        final byte[] actual = line.substring(TOKEN_COMMAND.length()).getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    private void writeTokenFile(final File file) throws IOException {
+        final Path path = file.toPath();
+        Files.deleteIfExists(path);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            // created without following links, and readable by no one else from the start
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(path);
+            if (!file.setReadable(false, false) || !file.setReadable(true, true) || !file.setWritable(false, false)
+                    || !file.setWritable(true, true)) {
+                throw new IOException("Unable to restrict access to token file " + file);
+            }
+        }
+        Files.write(path, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Accepts requests until a client stops the daemon.
+     *
+     * @throws IOException
+     *             if the daemon cannot listen on its port
+     */
+    public void serve() throws IOException {
+        if (ClassLoader.getSystemClassLoader().getResource("org/springframework/core/SpringVersion.class") != null) {
+            console.println("Warning: the test daemon should only have spring-test-utils on its classpath; "
+                    + "tests get their classpath from the client");
+        }
+        final File tokenFile = getTokenFile(port);
+        try (final ServerSocket serverSocket = new ServerSocket(port, 1, InetAddress.getLoopbackAddress())) {
+            writeTokenFile(tokenFile);
+            console.println("Test daemon listening on " + serverSocket.getLocalSocketAddress() + "; token written to "
+                    + tokenFile);
+            while (!stopped) {
+                try (final Socket socket = serverSocket.accept()) {
+                    handle(socket);
+                } catch (final IOException e) {
+                    console.println("Test daemon request failed: " + e);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(tokenFile.toPath());
+            discardClassLoader();
+        }
+        console.println("Test daemon stopped");
+    }
+
+    private void discardClassLoader() {
+        if (loader == null) {
+            return;
+        }
+        try {
+            loader.loadClass(WORKER_CLASS).getMethod("shutdown").invoke(null);
+        } catch (final ReflectiveOperationException | LinkageError e) {
+            console.println("Unable to close cached contexts: " + e);
+        }
+        try {
+            loader.close();
+        } catch (final IOException e) {
+            console.println("Unable to close test class loader: " + e);
+        }
+        loader = null;
+        loaderFingerprint = null;
+    }
+
+    private ClassLoader getClassLoader(final List<File> classpath, final PrintStream out)
+            throws MalformedURLException {
+        final String fingerprint = ClasspathFingerprint.compute(classpath);
+        if (loader != null) {
+            if (fingerprint.equals(loaderFingerprint)) {
+                out.println("Classpath unchanged; reusing cached contexts");
+                return loader;
+            }
+            out.println("Classpath changed; closing cached contexts");
+            discardClassLoader();
+        }
+
+        final URL[] urls = new URL[classpath.size()];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = classpath.get(i).toURI().toURL();
+        }
+
+        // tests must not see the classes of the daemon's own classpath
+        loader = new URLClassLoader(urls, ClassLoader.getSystemClassLoader().getParent());
+        loaderFingerprint = fingerprint;
+        return loader;
+    }
+
+    private void handle(final Socket socket) throws IOException {
+        // a silent connection would otherwise block the daemon before its token is checked
+        socket.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+        final BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        final PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8.name());
+
+        if (!isAuthorized(in.readLine())) {
+            console.println("Rejected request without a valid token from " + socket.getRemoteSocketAddress());
+            out.println("Unauthorized request; the first line must be " + TOKEN_COMMAND.trim()
+                    + " followed by the token in " + getTokenFile(port));
+            out.println(EXIT_PREFIX + 2);
+            return;
+        }
+
+        final List<File> classpath = new ArrayList<>();
+        final List<String> selections = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null && !END_COMMAND.equals(line)) {
+            if (STOP_COMMAND.equals(line)) {
+                stopped = true;
+                out.println("Stopping test daemon");
+                out.println(EXIT_PREFIX + 0);
+                return;
+            } else if (line.startsWith(CLASSPATH_COMMAND)) {
+                for (final String path : line.substring(CLASSPATH_COMMAND.length()).split(File.pathSeparator)) {
+                    if (!path.isEmpty()) {
+                        classpath.add(new File(path).getAbsoluteFile());
+                    }
+                }
+            } else if (line.startsWith(RUN_COMMAND)) {
+                selections.add(line.substring(RUN_COMMAND.length()).trim());
+            } else {
+                out.println("Unknown request: " + line);
+                out.println(EXIT_PREFIX + 2);
+                return;
+            }
+        }
+
+        int exitCode;
+        final long start = System.nanoTime();
+        try {
+            exitCode = run(classpath, selections, out) ? 0 : 1;
+        } catch (final Exception e) {
+            e.printStackTrace(out);
+            exitCode = 2;
+        }
+        console.println("Ran " + selections + " in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        out.println(EXIT_PREFIX + exitCode);
+    }
+
+    private boolean run(final List<File> classpath, final List<String> selections, final PrintStream out)
+            throws Exception {
+        if (classpath.isEmpty() || selections.isEmpty()) {
+            throw new IllegalArgumentException("Request must include a classpath and at least one test");
+        }
+
+        final ClassLoader testLoader = getClassLoader(classpath, out);
+        final Method method = testLoader.loadClass(WORKER_CLASS).getMethod("run", String[].class, PrintStream.class);
+
+        final Thread thread = Thread.currentThread();
+        final ClassLoader contextLoader = thread.getContextClassLoader();
+        final PrintStream systemOut = System.out;
+        final PrintStream systemErr = System.err;
+        thread.setContextClassLoader(testLoader);
+        System.setOut(out);
+        System.setErr(out);
+        try {
+            final String[] args = selections.toArray(new String[selections.size()]);
+            return ((Boolean) method.invoke(null, args, out)).booleanValue();
+        } catch (final InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        } finally {
+            System.setOut(systemOut);
+            System.setErr(systemErr);
+            thread.setContextClassLoader(contextLoader);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.daemon;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Thin client that asks a running {@link TestDaemon} to run tests, and prints their progress and
+ * results as they are streamed back. The client only needs this library on its classpath, so it
+ * starts in a fraction of a second.
+ *
+ * <pre>
+ * java -cp &lt;test classpath&gt; com.arakelian.spring.test.daemon.TestDaemonClient com.example.SomeTest#someMethod
+ * java -cp &lt;test classpath&gt; com.arakelian.spring.test.daemon.TestDaemonClient --stop
+ * </pre>
+ *
+ * <p>
+ * The tests run with the classpath of the client, or with the value of the
+ * {@value #CLASSPATH_PROPERTY} system property if it is set. The client authenticates with the
+ * token that the daemon wrote to {@link TestDaemon#getTokenFile(int)}, so it must run as the same
+ * user as the daemon.
+ * </p>
+ */
+public final class TestDaemonClient {
+    /** System property with the classpath to run tests with **/
+    public static final String CLASSPATH_PROPERTY = "spring.test.daemon.classpath";
+
+    /** Exit code when the daemon is not running or the request fails **/
+    private static final int ERROR = 2;
+
+    /** How to start a daemon; it must have nothing but this library on its classpath **/
+    private static final String START_COMMAND = "java -cp spring-test-utils.jar " + TestDaemon.class.getName();
+
+    /**
+     * Runs the tests given on the command line, or stops the daemon with <code>--stop</code>, and
+     * exits with 0 if all tests passed, 1 if some failed, or 2 on error.
+     *
+     * @param args
+     *            test class names, optionally followed by <code>#</code> and a method name
+     * @throws IOException
+     *             if communication with the daemon fails
+     */
+    public static void main(final String[] args) throws IOException {
+        System.exit(run(args, System.out));
+    }
+
+    /**
+     * Sends a request to the daemon, and copies its response to the given stream.
+     *
+     * @param args
+     *            test class names, optionally followed by <code>#</code> and a method name, or
+     *            <code>--stop</code>
+     * @param out
+     *            stream that the response is copied to
+     * @return exit code of the request
+     * @throws IOException
+     *             if communication with the daemon fails
+     */
+    public static int run(final String[] args, final PrintStream out) throws IOException {
+        if (args.length == 0) {
+            out.println("Usage: TestDaemonClient (--stop | <test class>[#<method>]...)");
+            return ERROR;
+        }
+
+        final int port = TestDaemon.getPort();
+        final File tokenFile = TestDaemon.getTokenFile(port);
+        if (!tokenFile.isFile()) {
+            out.println("No test daemon token in " + tokenFile + "; start a daemon with: " + START_COMMAND);
+            return ERROR;
+        }
+        final String token = new String(Files.readAllBytes(tokenFile.toPath()), StandardCharsets.UTF_8).trim();
+
+        final Socket socket;
+        try {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        } catch (final ConnectException e) {
+            out.println("No test daemon is listening on port " + port + "; start one with: " + START_COMMAND);
+            return ERROR;
+        }
+
+        try {
+            final PrintWriter writer = new PrintWriter(
+                    new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            writer.println(TestDaemon.TOKEN_COMMAND + token);
+            if (args.length == 1 && "--stop".equals(args[0])) {
+                writer.println(TestDaemon.STOP_COMMAND);
+            } else {
+                writer.println(TestDaemon.CLASSPATH_COMMAND
+                        + System.getProperty(CLASSPATH_PROPERTY, System.getProperty("java.class.path")));
+                for (final String arg : args) {
+                    writer.println(TestDaemon.RUN_COMMAND + arg);
+                }
+                writer.println(TestDaemon.END_COMMAND);
+            }
+            writer.flush();
+
+            final BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(TestDaemon.EXIT_PREFIX)) {
+                    return Integer.parseInt(line.substring(TestDaemon.EXIT_PREFIX.length()).trim());
+                }
+                out.println(line);
+            }
+            out.println("Test daemon closed the connection");
+            return ERROR;
+        } finally {
+            socket.close();
+        }
+    }
+
+    private TestDaemonClient() {
+        // utility class
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.daemon;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+import org.springframework.test.context.cache.ContextCache;
+
+import com.arakelian.spring.test.context.ContextCaches;
+
+/**
+ * Runs tests on behalf of the {@link TestDaemon}. This class is loaded by the daemon's disposable
+ * class loader, together with JUnit, Spring and the tests, so that contexts cached by Spring
+ * survive from one run to the next until the classpath changes. Its methods only use JDK types,
+ * because the daemon calls them reflectively from another class loader.
+ */
+public final class TestDaemonWorker {
+    /** Reports test progress to the client **/
+    private static final class ReportingListener extends RunListener {
+        private final PrintStream out;
+        private final AtomicInteger ignored = new AtomicInteger();
+
+        private ReportingListener(final PrintStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void testAssumptionFailure(final Failure failure) {
+            ignored.incrementAndGet();
+            out.println("SKIPPED " + failure.getDescription().getDisplayName() + ": " + failure.getMessage());
+        }
+
+        @Override
+        public void testFailure(final Failure failure) {
+            out.println("FAILED " + failure.getDescription().getDisplayName());
+            out.print(failure.getTrace());
+        }
+
+        @Override
+        public void testIgnored(final Description description) {
+            ignored.incrementAndGet();
+            out.println("IGNORED " + description.getDisplayName());
+        }
+
+        @Override
+        public void testStarted(final Description description) {
+            out.println("STARTED " + description.getDisplayName());
+        }
+    }
+
+    /**
+     * Runs the given test classes or methods.
+     *
+     * @param selections
+     *            test class names, optionally followed by <code>#</code> and a method name
+     * @param out
+     *            stream that progress and results are written to
+     * @return true if every test passed
+     * @throws ClassNotFoundException
+     *             if a test class cannot be found
+     */
+    public static boolean run(final String[] selections, final PrintStream out) throws ClassNotFoundException {
+        final ClassLoader loader = TestDaemonWorker.class.getClassLoader();
+        final ContextCache contextCache = ContextCaches.getDefaultContextCache();
+        final int missesBefore = contextCache.getMissCount();
+        final int hitsBefore = contextCache.getHitCount();
+
+        final JUnitCore core = new JUnitCore();
+        final ReportingListener listener = new ReportingListener(out);
+        core.addListener(listener);
+        boolean successful = true;
+        int runCount = 0;
+        int failureCount = 0;
+        long runTime = 0;
+        for (final String selection : selections) {
+            final int hash = selection.indexOf('#');
+            final String className = hash != -1 ? selection.substring(0, hash) : selection;
+            final Class<?> testClass = Class.forName(className, true, loader);
+            final Request request = hash != -1
+                    ? Request.method(testClass, selection.substring(hash + 1))
+                    : Request.aClass(testClass);
+            final Result result = core.run(request);
+            successful &= result.wasSuccessful();
+            runCount += result.getRunCount();
+            failureCount += result.getFailureCount();
+            runTime += result.getRunTime();
+        }
+
+        out.println(
+                "Tests run: " + runCount + ", Failures: " + failureCount + ", Skipped: " + listener.ignored.get()
+                        + ", Time: " + runTime + "ms");
+        out.println(
+                "Contexts: " + (contextCache.getMissCount() - missesBefore) + " loaded, "
+                        + (contextCache.getHitCount() - hitsBefore) + " cache hits, "
+                        + contextCache.size() + " cached");
+        return successful;
+    }
+
+    /**
+     * Closes every cached context, before the daemon discards this class loader.
+     */
+    public static void shutdown() {
+        ContextCaches.getDefaultContextCache().reset();
+    }
+
+    private TestDaemonWorker() {
+        // utility class
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.jfr;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.test.context.MergedContextConfiguration;
+
+import com.arakelian.spring.test.context.ContextKeys;
+
+/**
+ * Defines the <code>com.arakelian.spring.test.TestPhase</code> event type with
+ * <code>jdk.jfr.EventFactory</code>, and creates events of that type; see {@link TestEvents}.
+ *
+ * <p>
+ * <code>jdk.jfr</code> is only reached through reflection, so that this library still compiles
+ * for Java 8 with <code>--release 8</code>, whose API does not include it.
+ * </p>
+ */
+final class JfrTestEvents {
+    /** Recorded phase; a <code>jdk.jfr.Event</code> created by the event factory **/
+    private static final class JfrTestEvent implements TestEvent {
+        private final Object event;
+        private final TestEventPhase phase;
+        private final Class<?> testClass;
+        private final String testMethod;
+        private final String rule;
+        private final int order;
+
+        private JfrTestEvent(
+                final Object event,
+                final TestEventPhase phase,
+                final Class<?> testClass,
+                final String testMethod,
+                final String rule,
+                final int order) {
+            this.event = event;
+            this.phase = phase;
+            this.testClass = testClass;
+            this.testMethod = testMethod;
+            this.rule = rule;
+            this.order = order;
+        }
+
+        @Override
+        public void finish() {
+            invoke(END, event);
+            if (((Boolean) invoke(SHOULD_COMMIT, event)).booleanValue()) {
+                // fields are only filled in for events that are actually recorded
+                set(PHASE, phase.name());
+                set(TEST_CLASS, testClass);
+                set(TEST_METHOD, testMethod);
+                set(CONTEXT_KEY, getContextKey(testClass));
+                set(RULE, rule);
+                set(ORDER, Integer.valueOf(order));
+                invoke(COMMIT, event);
+            }
+        }
+
+        private void set(final int index, final Object value) {
+            invoke(SET, event, Integer.valueOf(index), value);
+        }
+    }
+
+    /** Indexes of the event fields, in the order they are declared **/
+    private static final int PHASE = 0;
+    private static final int TEST_CLASS = 1;
+    private static final int TEST_METHOD = 2;
+    private static final int CONTEXT_KEY = 3;
+    private static final int RULE = 4;
+    private static final int ORDER = 5;
+
+    private static final String PACKAGE = "jdk.jfr.";
+
+    private static final Method NEW_EVENT;
+    private static final Method IS_ENABLED;
+    private static final Method BEGIN;
+    private static final Method END;
+    private static final Method SHOULD_COMMIT;
+    private static final Method COMMIT;
+    private static final Method SET;
+
+    /** <code>jdk.jfr.EventFactory</code> of test phase events **/
+    private static final Object FACTORY;
+
+    /** <code>jdk.jfr.EventType</code> of test phase events **/
+    private static final Object EVENT_TYPE;
+
+    static {
+        try {
+            final Class<?> eventClass = loadClass("Event");
+            final Class<?> factoryClass = loadClass("EventFactory");
+            NEW_EVENT = factoryClass.getMethod("newEvent");
+            IS_ENABLED = loadClass("EventType").getMethod("isEnabled");
+            BEGIN = eventClass.getMethod("begin");
+            END = eventClass.getMethod("end");
+            SHOULD_COMMIT = eventClass.getMethod("shouldCommit");
+            COMMIT = eventClass.getMethod("commit");
+            SET = eventClass.getMethod("set", int.class, Object.class);
+
+            final List<Object> fields = new ArrayList<>();
+            fields.add(field(String.class, "phase", "Phase", null));
+            fields.add(field(Class.class, "testClass", "Test Class", null));
+            fields.add(field(String.class, "testMethod", "Test Method", null));
+            fields.add(field(String.class, "contextKey", "Context Key",
+                    "Hash of the merged context configuration; tests with the same key share a context"));
+            fields.add(field(String.class, "rule", "Rule", null));
+            fields.add(field(int.class, "order", "Rule Order", null));
+
+            final List<Object> annotations = Arrays.asList(
+                    annotation("Name", "com.arakelian.spring.test.TestPhase"),
+                    annotation("Label", "Test Phase"),
+                    annotation("Category", new String[] { "Spring Test" }),
+                    annotation("Description", "Time spent in a phase of a Spring test"),
+                    annotation("StackTrace", Boolean.FALSE));
+
+            // registers the event type
+            FACTORY = factoryClass.getMethod("create", List.class, List.class).invoke(null, annotations, fields);
+            EVENT_TYPE = factoryClass.getMethod("getEventType").invoke(FACTORY);
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to define test event type", e);
+        }
+    }
+
+    static TestEvent begin(
+            final TestEventPhase phase,
+            final Class<?> testClass,
+            final String testMethod,
+            final String rule,
+            final int order) {
+        if (!isEnabled()) {
+            return null;
+        }
+        final Object event = invoke(NEW_EVENT, FACTORY);
+        invoke(BEGIN, event);
+        return new JfrTestEvent(event, phase, testClass, testMethod, rule, order);
+    }
+
+    static boolean isEnabled() {
+        return ((Boolean) invoke(IS_ENABLED, EVENT_TYPE)).booleanValue();
+    }
+
+    private static Object annotation(final String type, final Object value) throws ReflectiveOperationException {
+        final Constructor<?> constructor = loadClass("AnnotationElement").getConstructor(Class.class, Object.class);
+        return constructor.newInstance(loadClass(type).asSubclass(Annotation.class), value);
+    }
+
+    private static Object field(final Class<?> type, final String name, final String label, final String description)
+            throws ReflectiveOperationException {
+        final List<Object> annotations = new ArrayList<>();
+        annotations.add(annotation("Label", label));
+        if (description != null) {
+            annotations.add(annotation("Description", description));
+        }
+        final Constructor<?> constructor = loadClass("ValueDescriptor").getConstructor(Class.class, String.class,
+                List.class);
+        return constructor.newInstance(type, name, Collections.unmodifiableList(annotations));
+    }
+
+    private static String getContextKey(final Class<?> testClass) {
+        try {
+            final MergedContextConfiguration config = ContextKeys.getMergedContextConfiguration(testClass);
+            return Integer.toHexString(config.hashCode());
+        } catch (final RuntimeException e) {
+            // not a Spring test class
+            return null;
+        }
+    }
+
+    private static Object invoke(final Method method, final Object target, final Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (final InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Unable to record test event", cause);
+        } catch (final IllegalAccessException e) {
+            throw new IllegalStateException("Unable to record test event", e);
+        }
+    }
+
+    private static Class<?> loadClass(final String simpleName) throws ClassNotFoundException {
+        return Class.forName(PACKAGE + simpleName, false, JfrTestEvents.class.getClassLoader());
+    }
+
+    private JfrTestEvents() {
+        // utility class
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.jfr;
+
+/**
+ * Phases of a Spring test that are recorded as Java Flight Recorder events by {@link TestEvents}.
+ */
+public enum TestEventPhase {
+    /** Running the statement of a rule within {@link com.arakelian.spring.test.rule.OrderedRules} **/
+    RULE,
+
+    /** Loading the application context, or fetching it from the context cache **/
+    CONTEXT_LOAD,
+
+    /** Spring's before test class callbacks **/
+    BEFORE_CLASS,
+
+    /** Spring's after test class callbacks **/
+    AFTER_CLASS,
+
+    /** Preparing a test instance, including dependency injection **/
+    PREPARE_INSTANCE,
+
+    /** Spring's before test method callbacks **/
+    BEFORE_METHOD,
+
+    /** Spring's after test method callbacks **/
+    AFTER_METHOD,
+
+    /** Running a test method annotated with Spring's <code>@Repeat</code>, all repetitions **/
+    REPEAT,
+
+    /** Running a test method annotated with Spring's <code>@Timed</code>, within its timeout **/
+    TIMEOUT;
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.jfr;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Records the phases of Spring tests as Java Flight Recorder events, so that profiles of test runs
+ * show where time goes beyond opaque JUnit frames.
+ *
+ * <p>
+ * Events are emitted by {@link com.arakelian.spring.test.rule.OrderedRules},
+ * {@link com.arakelian.spring.test.rule.SpringClassRule} and
+ * {@link com.arakelian.spring.test.rule.SpringMethodRule}, and carry the test class, test method
+ * and a key of the test's context configuration. They are named
+ * <code>com.arakelian.spring.test.TestPhase</code>, and are recorded by any recording that does not
+ * explicitly disable them, e.g. one started with <code>-XX:StartFlightRecording</code>.
+ * </p>
+ *
+ * <p>
+ * Requires <code>jdk.jfr</code>, available in JDK 11 and later and in JDK 8 since update 262; on
+ * other JVMs, and whenever no recording has the event enabled, {@link #begin} returns a shared
+ * no-op event without allocating.
+ * </p>
+ */
+public final class TestEvents {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestEvents.class);
+
+    /** Flight recorder class, present in JDK 11+ and JDK 8u262+ **/
+    private static final String FLIGHT_RECORDER_CLASS = "jdk.jfr.FlightRecorder";
+
+    /** Event returned when nothing is recorded **/
+    private static final TestEvent NOOP = new TestEvent() {
+        @Override
+        public void finish() {
+            // nothing recorded
+        }
+    };
+
+    private static final boolean AVAILABLE = isJfrAvailable();
+
+    /**
+     * Begins recording a phase of a test.
+     *
+     * @param phase
+     *            phase of the test
+     * @param testClass
+     *            test class
+     * @param testMethod
+     *            name of the test method, or null for phases of the test class
+     * @return event that must be finished when the phase ends
+     */
+    public static TestEvent begin(final TestEventPhase phase, final Class<?> testClass, final String testMethod) {
+        return begin(phase, testClass, testMethod, null, 0);
+    }
+
+    /**
+     * Begins recording a phase of a test.
+     *
+     * @param phase
+     *            phase of the test
+     * @param testClass
+     *            test class
+     * @param testMethod
+     *            name of the test method, or null for phases of the test class
+     * @param rule
+     *            name of the rule, for {@link TestEventPhase#RULE}
+     * @param order
+     *            order of the rule, for {@link TestEventPhase#RULE}
+     * @return event that must be finished when the phase ends
+     */
+    public static TestEvent begin(
+            final TestEventPhase phase,
+            final Class<?> testClass,
+            final String testMethod,
+            final String rule,
+            final int order) {
+        if (!AVAILABLE) {
+            return NOOP;
+        }
+        final TestEvent event = JfrTestEvents.begin(phase, testClass, testMethod, rule, order);
+        return event != null ? event : NOOP;
+    }
+
+    /**
+     * Returns true if this JVM supports Java Flight Recorder events.
+     *
+     * @return true if this JVM supports Java Flight Recorder events
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    private static boolean isJfrAvailable() {
+        if (!ClassUtils.isPresent(FLIGHT_RECORDER_CLASS, TestEvents.class.getClassLoader())) {
+            LOGGER.debug("Test events are not recorded because {} is not available", FLIGHT_RECORDER_CLASS);
+            return false;
+        }
+        try {
+            // registers the event type
+            JfrTestEvents.isEnabled();
+            return true;
+        } catch (final LinkageError | RuntimeException e) {
+            LOGGER.debug("Test events are not recorded because Java Flight Recorder is not usable", e);
+            return false;
+        }
+    }
+
+    private TestEvents() {
+        // utility class
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.logging;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.AppenderRef;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.SimpleMessage;
+
+/**
+ * Log4J2 implementation of {@link TestLogBuffer}. This is the only class that refers to
+ * <code>log4j-core</code>, so that it is only loaded when Log4J2 is available.
+ */
+final class Log4jLogBuffer {
+    /**
+     * Appender that takes the place of an appender of a logger, and records events in the buffer
+     * instead of writing them while a scope is open.
+     */
+    private static final class BufferingAppender extends AbstractAppender {
+        private final Appender target;
+
+        private BufferingAppender(final String name, final Appender target) {
+            super(name, null, null, true);
+            this.target = target;
+        }
+
+        @Override
+        public void append(final LogEvent event) {
+            if (depth == 0 || !add(target, event)) {
+                target.append(event);
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final Appender target;
+        private final LogEvent event;
+        private final long sequence;
+        private final long bytes;
+
+        private Entry(final Appender target, final LogEvent event, final long sequence) {
+            this.target = target;
+            this.event = event;
+            this.sequence = sequence;
+            this.bytes = estimateBytes(event);
+        }
+    }
+
+    /** Rough size of a log event, excluding its message **/
+    private static final int EVENT_OVERHEAD = 256;
+
+    /** Rough size of a formatted message parameter **/
+    private static final int PARAMETER_BYTES = 32;
+
+    /** Buffered events, oldest first; guarded by BUFFER **/
+    private static final ArrayDeque<Entry> BUFFER = new ArrayDeque<>();
+
+    /** Sequence number of the first event of each open scope, innermost last; guarded by BUFFER **/
+    private static final ArrayDeque<Long> SCOPES = new ArrayDeque<>();
+
+    /** Number of open scopes; written while holding BUFFER **/
+    private static volatile int depth;
+
+    /** Sequence number of the next buffered event; guarded by BUFFER **/
+    private static long sequence;
+
+    /** Estimated size of buffered events; guarded by BUFFER **/
+    private static long bufferedBytes;
+
+    /** Number of events dropped because the buffer was full; guarded by BUFFER **/
+    private static long dropped;
+
+    /** Maximum size of buffered events; guarded by BUFFER **/
+    private static long maxBytes;
+
+    /** Configuration that buffering appenders were installed into; guarded by Log4jLogBuffer.class **/
+    private static Configuration installed;
+
+    static void discard() {
+        synchronized (BUFFER) {
+            final long first = SCOPES.isEmpty() ? 0 : SCOPES.removeLast().longValue();
+            while (!BUFFER.isEmpty() && BUFFER.peekLast().sequence >= first) {
+                bufferedBytes -= BUFFER.removeLast().bytes;
+            }
+            closeScope();
+        }
+    }
+
+    static int flush(final String header) {
+        final List<Entry> entries;
+        final long droppedEvents;
+        synchronized (BUFFER) {
+            // events of enclosing scopes that are still buffered explain how the failure came about
+            entries = new ArrayList<>(BUFFER);
+            droppedEvents = dropped;
+            if (!SCOPES.isEmpty()) {
+                SCOPES.removeLast();
+            }
+            clear();
+            closeScope();
+        }
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        // announce the events on every appender that is about to receive them
+        final Set<Appender> targets = Collections.newSetFromMap(new IdentityHashMap<Appender, Boolean>());
+        for (final Entry entry : entries) {
+            targets.add(entry.target);
+        }
+        final StringBuilder message = new StringBuilder(header);
+        message.append(" (").append(entries.size()).append(" buffered log events");
+        if (droppedEvents != 0) {
+            message.append(", ").append(droppedEvents).append(" older events dropped");
+        }
+        message.append(')');
+        final LogEvent headerEvent = Log4jLogEvent.newBuilder() //
+                .setLoggerName(TestLogBuffer.class.getName()) //
+                .setLoggerFqcn(TestLogBuffer.class.getName()) //
+                .setLevel(Level.INFO) //
+                .setMessage(new SimpleMessage(message.toString())) //
+                .setTimeMillis(System.currentTimeMillis()) //
+                .build();
+        for (final Appender target : targets) {
+            target.append(headerEvent);
+        }
+
+        for (final Entry entry : entries) {
+            if (entry.target.isStarted()) {
+                entry.target.append(entry.event);
+            }
+        }
+        return entries.size();
+    }
+
+    static void start(final long max) {
+        install();
+        synchronized (BUFFER) {
+            if (SCOPES.isEmpty()) {
+                maxBytes = max;
+                clear();
+            }
+            SCOPES.addLast(Long.valueOf(sequence));
+            depth = SCOPES.size();
+        }
+    }
+
+    /**
+     * Records an event in the buffer.
+     *
+     * @param target
+     *            appender the event is meant for
+     * @param event
+     *            log event
+     * @return false if the event was not buffered because no scope is open
+     */
+    private static boolean add(final Appender target, final LogEvent event) {
+        // events may be mutable and reused by the caller
+        final LogEvent immutable = event.toImmutable();
+        synchronized (BUFFER) {
+            if (SCOPES.isEmpty()) {
+                // scope was closed since the caller checked
+                return false;
+            }
+            final Entry entry = new Entry(target, immutable, sequence++);
+            BUFFER.addLast(entry);
+            bufferedBytes += entry.bytes;
+            while (bufferedBytes > maxBytes && BUFFER.size() > 1) {
+                bufferedBytes -= BUFFER.removeFirst().bytes;
+                dropped++;
+            }
+        }
+        return true;
+    }
+
+    private static void clear() {
+        BUFFER.clear();
+        bufferedBytes = 0;
+        dropped = 0;
+    }
+
+    private static void closeScope() {
+        depth = SCOPES.size();
+        if (depth == 0) {
+            clear();
+        }
+    }
+
+    private static long estimateBytes(final LogEvent event) {
+        // most buffered events are discarded, so avoid formatting them just to measure them
+        final Message message = event.getMessage();
+        final String format = message.getFormat();
+        final Object[] parameters = message.getParameters();
+        return EVENT_OVERHEAD + (format != null ? 2L * format.length() : 0)
+                + (parameters != null ? (long) PARAMETER_BYTES * parameters.length : 0);
+    }
+
+    private static synchronized void install() {
+        final org.apache.logging.log4j.spi.LoggerContext context = LogManager.getContext(false);
+        if (!(context instanceof LoggerContext)) {
+            return;
+        }
+        final Configuration configuration = ((LoggerContext) context).getConfiguration();
+        if (configuration == installed) {
+            return;
+        }
+
+        final Set<LoggerConfig> loggerConfigs = new LinkedHashSet<>(configuration.getLoggers().values());
+        loggerConfigs.add(configuration.getRootLogger());
+        for (final LoggerConfig loggerConfig : loggerConfigs) {
+            final Map<String, AppenderRef> refs = new HashMap<>();
+            for (final AppenderRef ref : loggerConfig.getAppenderRefs()) {
+                refs.put(ref.getRef(), ref);
+            }
+
+            // keep the level and filter of each appender reference
+            final Map<String, Appender> appenders = new HashMap<>(loggerConfig.getAppenders());
+            for (final Map.Entry<String, Appender> entry : appenders.entrySet()) {
+                final Appender target = entry.getValue();
+                if (target instanceof BufferingAppender) {
+                    continue;
+                }
+                final AppenderRef ref = refs.get(entry.getKey());
+                final BufferingAppender appender = new BufferingAppender(
+                        "TestLogBuffer-" + loggerConfig.getName() + "-" + entry.getKey(), target);
+                appender.start();
+                loggerConfig.removeAppender(entry.getKey());
+                loggerConfig.addAppender(
+                        appender,
+                        ref != null ? ref.getLevel() : null,
+                        ref != null ? ref.getFilter() : null);
+            }
+        }
+        ((LoggerContext) context).updateLoggers();
+        installed = configuration;
+    }
+
+    private Log4jLogBuffer() {
+        // utility class
+    }
+}
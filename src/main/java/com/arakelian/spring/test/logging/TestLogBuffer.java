@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+
+import com.arakelian.spring.test.util.ByteSizes;
+
+/**
+ * Holds log events in memory while a test runs, and only writes them out if the test fails.
+ *
+ * <p>
+ * Test suites often log at DEBUG level, and writing those logs to disk and console slows them
+ * down even though they are only read when something goes wrong. When the
+ * {@value #MAX_BYTES_PROPERTY} system property is set (for example to <code>16m</code>), the
+ * appenders of every Log4J2 logger are replaced by appenders that record events in a bounded
+ * in-memory buffer while a scope opened by {@link #start()} is open; when the buffer is full, the
+ * oldest events are dropped. The events of a scope are written to the original appenders when a
+ * test fails, and discarded when it succeeds. Outside of a scope, for example between test
+ * classes, events are written as usual.
+ * </p>
+ *
+ * <p>
+ * Scopes nest: a test method's scope sits inside its test class's scope. Closing the inner scope
+ * discards only the events logged since it was opened, and a failure also writes out the events
+ * of the enclosing scopes that are still buffered, such as those logged while loading the
+ * application context.
+ * </p>
+ *
+ * <p>
+ * Buffering requires <code>log4j-core</code>; it is silently disabled when another logging
+ * implementation is used. The buffer is shared by all threads, so tests should not run in
+ * parallel while a scope is open.
+ * </p>
+ */
+public final class TestLogBuffer {
+    /** System property that sets the maximum size of buffered log events **/
+    public static final String MAX_BYTES_PROPERTY = "spring.test.logBuffer.maxBytes";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestLogBuffer.class);
+
+    /** Log4J2 implementation class **/
+    private static final String LOG4J_CONTEXT_CLASS = "org.apache.logging.log4j.core.LoggerContext";
+
+    private static final long MAX_BYTES = ByteSizes.getBytes(MAX_BYTES_PROPERTY, 0);
+
+    private static final boolean ENABLED = MAX_BYTES > 0 && isLog4jAvailable();
+
+    /**
+     * Discards the log events of the innermost scope and closes it, for example when a test
+     * succeeds.
+     */
+    public static void discard() {
+        if (ENABLED) {
+            Log4jLogBuffer.discard();
+        }
+    }
+
+    /**
+     * Writes buffered log events to the appenders they were meant for, preceded by the given
+     * header, empties the buffer and closes the innermost scope.
+     *
+     * @param header
+     *            message that describes why the events are written, e.g. the name of the failed test
+     * @return number of events that were written
+     */
+    public static int flush(final String header) {
+        return ENABLED ? Log4jLogBuffer.flush(header) : 0;
+    }
+
+    /**
+     * Returns true if log events are buffered.
+     *
+     * @return true if log events are buffered
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Opens a scope and buffers log events until it is closed by {@link #discard()} or
+     * {@link #flush(String)}, installing the buffering appenders if the Log4J2 configuration has
+     * changed since they were last installed. Opening a nested scope keeps the events of the
+     * enclosing one.
+     */
+    public static void start() {
+        if (ENABLED) {
+            Log4jLogBuffer.start(MAX_BYTES);
+        }
+    }
+
+    private static boolean isLog4jAvailable() {
+        if (!ClassUtils.isPresent(LOG4J_CONTEXT_CLASS, TestLogBuffer.class.getClassLoader())) {
+            LOGGER.warn("{} is ignored because log4j-core is not available", MAX_BYTES_PROPERTY);
+            return false;
+        }
+        return true;
+    }
+
+    private TestLogBuffer() {
+        // utility class
+    }
+}
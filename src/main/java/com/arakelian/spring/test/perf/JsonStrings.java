@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.perf;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal helpers for writing JSON reports, and reading them back, without a JSON library.
+ */
+public final class JsonStrings {
+    /** Strict recursive descent parser for {@link #parse(String)} **/
+    private static final class Parser {
+        private final String json;
+        private int pos;
+
+        private Parser(final String json) {
+            this.json = json;
+        }
+
+        private IllegalArgumentException error(final String message) {
+            return new IllegalArgumentException(message + " at offset " + pos + " of JSON document");
+        }
+
+        private void expect(final char expected) {
+            skipWhitespace();
+            if (pos >= json.length() || json.charAt(pos) != expected) {
+                throw error("Expected '" + expected + "'");
+            }
+            pos++;
+        }
+
+        private boolean consume(final char ch) {
+            skipWhitespace();
+            if (pos < json.length() && json.charAt(pos) == ch) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private List<Object> readArray() {
+            expect('[');
+            final List<Object> list = new ArrayList<>();
+            if (consume(']')) {
+                return list;
+            }
+            do {
+                list.add(readValue());
+            } while (consume(','));
+            expect(']');
+            return list;
+        }
+
+        private Object readLiteral(final String literal, final Object value) {
+            if (!json.startsWith(literal, pos)) {
+                throw error("Unexpected character");
+            }
+            pos += literal.length();
+            return value;
+        }
+
+        private Object readNumber() {
+            final int start = pos;
+            boolean integral = true;
+            if (pos < json.length() && json.charAt(pos) == '-') {
+                pos++;
+            }
+            while (pos < json.length()) {
+                final char ch = json.charAt(pos);
+                if (ch == '.' || ch == 'e' || ch == 'E' || ch == '+' || ch == '-') {
+                    integral = false;
+                } else if (ch < '0' || ch > '9') {
+                    break;
+                }
+                pos++;
+            }
+            final String number = json.substring(start, pos);
+            try {
+                return integral ? (Object) Long.valueOf(number) : (Object) Double.valueOf(number);
+            } catch (final NumberFormatException e) {
+                pos = start;
+                throw error("Invalid number");
+            }
+        }
+
+        private Map<String, Object> readObject() {
+            expect('{');
+            final Map<String, Object> map = new LinkedHashMap<>();
+            if (consume('}')) {
+                return map;
+            }
+            do {
+                skipWhitespace();
+                final String name = readString();
+                expect(':');
+                map.put(name, readValue());
+            } while (consume(','));
+            expect('}');
+            return map;
+        }
+
+        private String readString() {
+            if (pos >= json.length() || json.charAt(pos) != '"') {
+                throw error("Expected string");
+            }
+            pos++;
+            final StringBuilder buf = new StringBuilder();
+            while (true) {
+                if (pos >= json.length()) {
+                    throw error("Unterminated string");
+                }
+                final char ch = json.charAt(pos++);
+                if (ch == '"') {
+                    return buf.toString();
+                }
+                if (ch < 0x20) {
+                    throw error("Unescaped control character in string");
+                }
+                if (ch != '\\') {
+                    buf.append(ch);
+                    continue;
+                }
+                if (pos >= json.length()) {
+                    throw error("Unterminated string");
+                }
+                final char escaped = json.charAt(pos++);
+                switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    buf.append(escaped);
+                    break;
+                case 'b':
+                    buf.append('\b');
+                    break;
+                case 'f':
+                    buf.append('\f');
+                    break;
+                case 'n':
+                    buf.append('\n');
+                    break;
+                case 'r':
+                    buf.append('\r');
+                    break;
+                case 't':
+                    buf.append('\t');
+                    break;
+                case 'u':
+                    if (pos + 4 > json.length()) {
+                        throw error("Invalid escape sequence");
+                    }
+                    try {
+                        buf.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+                    } catch (final NumberFormatException e) {
+                        throw error("Invalid escape sequence");
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    throw error("Invalid escape sequence");
+                }
+            }
+        }
+
+        private Object readValue() {
+            skipWhitespace();
+            if (pos >= json.length()) {
+                throw error("Unexpected end");
+            }
+            final char ch = json.charAt(pos);
+            switch (ch) {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+                return readString();
+            case 't':
+                return readLiteral("true", Boolean.TRUE);
+            case 'f':
+                return readLiteral("false", Boolean.FALSE);
+            case 'n':
+                return readLiteral("null", null);
+            default:
+                if (ch == '-' || ch >= '0' && ch <= '9') {
+                    return readNumber();
+                }
+                throw error("Unexpected character");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < json.length()) {
+                final char ch = json.charAt(pos);
+                if (ch != ' ' && ch != '\t' && ch != '\n' && ch != '\r') {
+                    return;
+                }
+                pos++;
+            }
+        }
+    }
+
+    /**
+     * Returns the given string as a quoted JSON string literal.
+     *
+     * @param value
+     *            string value, may be null
+     * @return quoted JSON string literal, or <code>null</code>
+     */
+    public static String quote(final String value) {
+        if (value == null) {
+            return "null";
+        }
+        final StringBuilder buf = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0, length = value.length(); i < length; i++) {
+            final char ch = value.charAt(i);
+            switch (ch) {
+            case '"':
+                buf.append("\\\"");
+                break;
+            case '\\':
+                buf.append("\\\\");
+                break;
+            case '\n':
+                buf.append("\\n");
+                break;
+            case '\r':
+                buf.append("\\r");
+                break;
+            case '\t':
+                buf.append("\\t");
+                break;
+            default:
+                if (ch < 0x20) {
+                    buf.append(String.format("\\u%04x", Integer.valueOf(ch)));
+                } else {
+                    buf.append(ch);
+                }
+            }
+        }
+        return buf.append('"').toString();
+    }
+
+    /**
+     * Parses a JSON document, such as a report written with {@link #quote(String)}. Objects are
+     * returned as maps that keep the order of their members, arrays as lists, numbers as
+     * {@link Long} or {@link Double}, and literals as {@link Boolean} or <code>null</code>.
+     *
+     * @param json
+     *            JSON document
+     * @return parsed value
+     * @throws IllegalArgumentException
+     *             if the document is not valid JSON
+     */
+    public static Object parse(final String json) {
+        final Parser parser = new Parser(json);
+        final Object value = parser.readValue();
+        parser.skipWhitespace();
+        if (parser.pos != json.length()) {
+            throw parser.error("Unexpected trailing characters");
+        }
+        return value;
+    }
+
+    private JsonStrings() {
+        // utility class
+    }
+}
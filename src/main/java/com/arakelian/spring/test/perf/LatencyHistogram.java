@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.perf;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+
+/**
+ * Fixed-memory histogram of latencies, recorded in nanoseconds.
+ *
+ * <p>
+ * Values below {@value #SUB_BUCKETS} are counted exactly; larger values fall into logarithmic
+ * buckets, each power of two being split into {@value #SUB_BUCKETS} linear sub-buckets, so
+ * reported percentiles are within about 3% of the recorded value. The histogram uses a constant
+ * 15KB regardless of the number of values recorded.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe; concurrent writers should each use their own histogram, and
+ * {@link #add(LatencyHistogram) merge} them afterwards.
+ * </p>
+ */
+public final class LatencyHistogram {
+    /** Number of bits used for linear sub-buckets **/
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /** Number of linear sub-buckets in each power of two **/
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    /**
+     * Formats a percentile for labels such as <code>p99</code> and <code>p99.9</code>, without a
+     * trailing <code>.0</code>.
+     *
+     * @param percentile
+     *            percentile between 0 and 100
+     * @return formatted percentile
+     */
+    public static String formatPercentile(final double percentile) {
+        // 50 -> "50", 99.9 -> "99.9"
+        return percentile == Math.rint(percentile) ? Long.toString((long) percentile)
+                : Double.toString(percentile);
+    }
+
+    static int indexOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int shift = exponent - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowestValueAt(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKETS - 1;
+        final long subBucket = index % SUB_BUCKETS;
+        return (SUB_BUCKETS + subBucket) << shift;
+    }
+
+    static long midpointValueAt(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKETS - 1;
+        return lowestValueAt(index) + (1L << shift) / 2;
+    }
+
+    private final long[] counts = new long[BUCKET_COUNT];
+
+    private long count;
+
+    private long sum;
+
+    private long min = Long.MAX_VALUE;
+
+    private long max;
+
+    /**
+     * Adds all values recorded by another histogram to this one.
+     *
+     * @param other
+     *            histogram to merge into this one
+     */
+    public void add(final LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax(final TimeUnit unit) {
+        return unit.convert(max, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @param unit
+     *            time unit
+     * @return mean in the given unit, or zero if no values were recorded
+     */
+    public double getMean(final TimeUnit unit) {
+        return count != 0 ? (double) sum / count / unit.toNanos(1) : 0;
+    }
+
+    public long getMin(final TimeUnit unit) {
+        return count != 0 ? unit.convert(min, TimeUnit.NANOSECONDS) : 0;
+    }
+
+    /**
+     * Returns the value at the given percentile.
+     *
+     * @param percentile
+     *            percentile between 0 and 100, e.g. 99.9
+     * @param unit
+     *            time unit
+     * @return value at the given percentile in the given unit, or zero if no values were recorded
+     */
+    public double getPercentile(final double percentile, final TimeUnit unit) {
+        Assert.isTrue(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+        if (count == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                // never report a value outside of what was actually recorded
+                final long value = Math.max(min, Math.min(max, midpointValueAt(i)));
+                return (double) value / unit.toNanos(1);
+            }
+        }
+        return (double) max / unit.toNanos(1);
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param nanos
+     *            value in nanoseconds; negative values are recorded as zero
+     */
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        counts[indexOf(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.perf;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs an operation repeatedly from a number of concurrent clients, for a fixed duration or a
+ * fixed number of operations, and records the latency of each operation.
+ *
+ * <p>
+ * Clients run on virtual threads when the JVM supports them, and on platform threads otherwise.
+ * </p>
+ */
+public final class LoadDriver {
+    /** One client, repeatedly invoking the operation **/
+    private final class Client implements Callable<LatencyHistogram> {
+        private final Callable<?> operation;
+        private final CountDownLatch start;
+        private final AtomicLong remaining;
+        private final long deadline;
+        private final AtomicBoolean failed;
+        private final LongAdder errorCount;
+        private final List<Throwable> errors;
+
+        private Client(
+                final Callable<?> operation,
+                final CountDownLatch start,
+                final AtomicLong remaining,
+                final long deadline,
+                final AtomicBoolean failed,
+                final LongAdder errorCount,
+                final List<Throwable> errors) {
+            this.operation = operation;
+            this.start = start;
+            this.remaining = remaining;
+            this.deadline = deadline;
+            this.failed = failed;
+            this.errorCount = errorCount;
+            this.errors = errors;
+        }
+
+        @Override
+        public LatencyHistogram call() throws InterruptedException {
+            final LatencyHistogram histogram = new LatencyHistogram();
+            start.await();
+            while (!failed.get() && remaining.getAndDecrement() > 0 && System.nanoTime() < deadline) {
+                final long begin = System.nanoTime();
+                try {
+                    operation.call();
+                } catch (final Exception | AssertionError e) {
+                    // only the first failures are reported, so memory stays fixed however many fail
+                    errorCount.increment();
+                    synchronized (errors) {
+                        if (errors.size() < LoadResult.MAX_ERRORS) {
+                            errors.add(e);
+                        }
+                    }
+                    if (stopOnError) {
+                        failed.set(true);
+                    }
+                }
+                histogram.record(System.nanoTime() - begin);
+            }
+            return histogram;
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadDriver.class);
+
+    /** Java 21+ <code>Executors.newVirtualThreadPerTaskExecutor()</code>, if available **/
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = ReflectionUtils
+            .findMethod(Executors.class, "newVirtualThreadPerTaskExecutor");
+
+    public static LoadDriver newDriver(final String name) {
+        return new LoadDriver(name);
+    }
+
+    private final String name;
+
+    private int clients = 1;
+
+    private long durationNanos = Long.MAX_VALUE;
+
+    private long operations = Long.MAX_VALUE;
+
+    private boolean stopOnError;
+
+    private boolean virtualThreads = true;
+
+    private LoadDriver(final String name) {
+        Assert.hasText(name, "name must be non-empty");
+        this.name = name;
+    }
+
+    /**
+     * Sets the number of concurrent clients.
+     *
+     * @param clients
+     *            number of concurrent clients
+     * @return this driver
+     */
+    public LoadDriver clients(final int clients) {
+        Assert.isTrue(clients > 0, "clients must be positive");
+        this.clients = clients;
+        return this;
+    }
+
+    /**
+     * Stops the run after the given duration.
+     *
+     * @param duration
+     *            duration
+     * @param unit
+     *            time unit of duration
+     * @return this driver
+     */
+    public LoadDriver duration(final long duration, final TimeUnit unit) {
+        Assert.isTrue(duration > 0, "duration must be positive");
+        this.durationNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * Stops the run after the given number of operations, across all clients.
+     *
+     * @param operations
+     *            total number of operations
+     * @return this driver
+     */
+    public LoadDriver operations(final long operations) {
+        Assert.isTrue(operations > 0, "operations must be positive");
+        this.operations = operations;
+        return this;
+    }
+
+    /**
+     * Runs the given operation until the configured duration or number of operations is reached.
+     *
+     * @param operation
+     *            operation to run; an exception or assertion error counts as a failed operation
+     * @return result of the run
+     * @throws InterruptedException
+     *             if the current thread is interrupted while waiting for clients
+     */
+    public LoadResult run(final Callable<?> operation) throws InterruptedException {
+        Assert.notNull(operation, "operation must not be null");
+        Assert.state(
+                durationNanos != Long.MAX_VALUE || operations != Long.MAX_VALUE,
+                "duration or number of operations must be specified");
+
+        final ExecutorService executor = newExecutor();
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicLong remaining = new AtomicLong(operations);
+        final AtomicBoolean failed = new AtomicBoolean();
+        final LongAdder errorCount = new LongAdder();
+        final List<Throwable> errors = new ArrayList<>(LoadResult.MAX_ERRORS);
+        final List<Future<LatencyHistogram>> futures = new ArrayList<>(clients);
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final long begin;
+        try {
+            final long now = System.nanoTime();
+            final long deadline = durationNanos == Long.MAX_VALUE ? Long.MAX_VALUE : now + durationNanos;
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(new Client(operation, start, remaining, deadline, failed, errorCount,
+                        errors)));
+            }
+            begin = System.nanoTime();
+            start.countDown();
+            for (final Future<LatencyHistogram> future : futures) {
+                histogram.add(awaitClient(future));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final long elapsedNanos = System.nanoTime() - begin;
+        final LoadResult result = new LoadResult(name, clients, elapsedNanos, histogram, errorCount.sum(),
+                errors);
+        LOGGER.info("{}", result);
+        return result;
+    }
+
+    /**
+     * Stops all clients as soon as one operation fails.
+     *
+     * @param stopOnError
+     *            true to stop on the first failure
+     * @return this driver
+     */
+    public LoadDriver stopOnError(final boolean stopOnError) {
+        this.stopOnError = stopOnError;
+        return this;
+    }
+
+    /**
+     * Allows or prevents the use of virtual threads for clients.
+     *
+     * @param virtualThreads
+     *            false to always use platform threads
+     * @return this driver
+     */
+    public LoadDriver virtualThreads(final boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    private LatencyHistogram awaitClient(final Future<LatencyHistogram> future)
+            throws InterruptedException {
+        try {
+            return future.get();
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Load client failed", e.getCause());
+        }
+    }
+
+    private ExecutorService newExecutor() {
+        if (virtualThreads && NEW_VIRTUAL_THREAD_EXECUTOR != null) {
+            return (ExecutorService) ReflectionUtils.invokeMethod(NEW_VIRTUAL_THREAD_EXECUTOR, null);
+        }
+        return Executors.newFixedThreadPool(clients, new ThreadFactoryBuilder() //
+                .setNameFormat("load-" + name + "-%d") //
+                .setDaemon(true) //
+                .build());
+    }
+}
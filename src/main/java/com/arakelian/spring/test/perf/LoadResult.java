@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.perf;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of a {@link LoadDriver} run: throughput, latency distribution and failures.
+ */
+public final class LoadResult {
+    /** Maximum number of failures retained for reporting **/
+    static final int MAX_ERRORS = 10;
+
+    /** Percentiles included in reports **/
+    private static final double[] PERCENTILES = new double[] { 50, 90, 99, 99.9 };
+
+    private final String name;
+
+    private final int clients;
+
+    private final long elapsedNanos;
+
+    private final LatencyHistogram histogram;
+
+    private final long errorCount;
+
+    private final List<Throwable> errors;
+
+    LoadResult(
+            final String name,
+            final int clients,
+            final long elapsedNanos,
+            final LatencyHistogram histogram,
+            final long errorCount,
+            final List<Throwable> errors) {
+        this.name = name;
+        this.clients = clients;
+        this.elapsedNanos = elapsedNanos;
+        this.histogram = histogram;
+        this.errorCount = errorCount;
+        this.errors = Collections
+                .unmodifiableList(new ArrayList<>(errors.subList(0, Math.min(MAX_ERRORS, errors.size()))));
+    }
+
+    /**
+     * Fails if any operation failed.
+     *
+     * @return this result
+     * @throws AssertionError
+     *             if any operation failed; the first failure is the cause
+     */
+    public LoadResult assertNoErrors() {
+        if (errorCount != 0) {
+            final AssertionError error = new AssertionError(
+                    name + ": " + errorCount + " of " + getCount() + " operations failed");
+            error.initCause(errors.get(0));
+            throw error;
+        }
+        return this;
+    }
+
+    /**
+     * Fails if the latency at the given percentile exceeds a limit.
+     *
+     * @param percentile
+     *            percentile between 0 and 100, e.g. 99.9
+     * @param limit
+     *            maximum latency
+     * @param unit
+     *            time unit of limit
+     * @return this result
+     * @throws AssertionError
+     *             if the latency at the given percentile exceeds the limit
+     */
+    public LoadResult assertPercentileAtMost(final double percentile, final long limit, final TimeUnit unit) {
+        final double actual = histogram.getPercentile(percentile, unit);
+        if (actual > limit) {
+            throw new AssertionError(String.format(
+                    Locale.ROOT,
+                    "%s: p%s latency %.3f %s exceeds %d %s",
+                    name,
+                    LatencyHistogram.formatPercentile(percentile),
+                    Double.valueOf(actual),
+                    unit.name().toLowerCase(Locale.ROOT),
+                    Long.valueOf(limit),
+                    unit.name().toLowerCase(Locale.ROOT)));
+        }
+        return this;
+    }
+
+    /**
+     * Fails if throughput is below the given number of operations per second.
+     *
+     * @param operationsPerSecond
+     *            minimum throughput
+     * @return this result
+     * @throws AssertionError
+     *             if throughput is below the minimum
+     */
+    public LoadResult assertThroughputAtLeast(final double operationsPerSecond) {
+        final double actual = getThroughput();
+        if (actual < operationsPerSecond) {
+            throw new AssertionError(String.format(
+                    Locale.ROOT,
+                    "%s: throughput %.1f ops/s is below %.1f ops/s",
+                    name,
+                    Double.valueOf(actual),
+                    Double.valueOf(operationsPerSecond)));
+        }
+        return this;
+    }
+
+    public int getClients() {
+        return clients;
+    }
+
+    public long getCount() {
+        return histogram.getCount();
+    }
+
+    public long getElapsed(final TimeUnit unit) {
+        return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Returns the first few failures, in no particular order.
+     *
+     * @return the first few failures
+     */
+    public List<Throwable> getErrors() {
+        return errors;
+    }
+
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getPercentile(final double percentile, final TimeUnit unit) {
+        return histogram.getPercentile(percentile, unit);
+    }
+
+    /**
+     * Returns the number of operations completed per second, including failed operations.
+     *
+     * @return operations per second
+     */
+    public double getThroughput() {
+        return elapsedNanos != 0 ? getCount() * 1e9 / elapsedNanos : 0;
+    }
+
+    /**
+     * Returns this result as a JSON object, with latencies in microseconds.
+     *
+     * @return JSON object
+     */
+    public String toJson() {
+        final StringBuilder buf = new StringBuilder(256);
+        buf.append("{\"name\":").append(JsonStrings.quote(name));
+        buf.append(",\"clients\":").append(clients);
+        buf.append(",\"count\":").append(getCount());
+        buf.append(",\"errors\":").append(errorCount);
+        buf.append(",\"elapsedMillis\":").append(getElapsed(TimeUnit.MILLISECONDS));
+        buf.append(",\"throughput\":").append(format(getThroughput()));
+        buf.append(",\"latencyMicros\":{");
+        buf.append("\"min\":").append(histogram.getMin(TimeUnit.MICROSECONDS));
+        buf.append(",\"mean\":").append(format(histogram.getMean(TimeUnit.MICROSECONDS)));
+        for (final double percentile : PERCENTILES) {
+            buf.append(",\"p").append(LatencyHistogram.formatPercentile(percentile)).append("\":")
+                    .append(format(histogram.getPercentile(percentile, TimeUnit.MICROSECONDS)));
+        }
+        buf.append(",\"max\":").append(histogram.getMax(TimeUnit.MICROSECONDS));
+        buf.append("}}");
+        return buf.toString();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buf = new StringBuilder(256);
+        buf.append(name).append(": ").append(getCount()).append(" operations from ").append(clients)
+                .append(" clients in ").append(getElapsed(TimeUnit.MILLISECONDS)).append("ms (")
+                .append(format(getThroughput())).append(" ops/s, ").append(errorCount).append(" errors); latency");
+        buf.append(" mean=").append(format(histogram.getMean(TimeUnit.MICROSECONDS))).append("us");
+        for (final double percentile : PERCENTILES) {
+            buf.append(" p").append(LatencyHistogram.formatPercentile(percentile)).append('=')
+                    .append(format(histogram.getPercentile(percentile, TimeUnit.MICROSECONDS))).append("us");
+        }
+        buf.append(" max=").append(histogram.getMax(TimeUnit.MICROSECONDS)).append("us");
+        return buf.toString();
+    }
+
+    /**
+     * Writes this result as JSON to the given file, creating parent directories as needed.
+     *
+     * @param file
+     *            output file
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public void writeJson(final File file) throws IOException {
+        final File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        Files.write(file.toPath(), toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String format(final double value) {
+        return String.format(Locale.ROOT, "%.1f", Double.valueOf(value));
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.perf;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.CaseFormat;
+
+/**
+ * Records the wall time spent by each test class in each {@link TimingPhase}, and by each test,
+ * and reports the slowest of them.
+ *
+ * <p>
+ * Class phases are recorded by {@link com.arakelian.spring.test.rule.SpringClassRule},
+ * {@link com.arakelian.spring.test.rule.SpringMethodRule} and
+ * {@link com.arakelian.spring.test.RunListenerSpringJUnit4ClassRunner}; test durations are
+ * recorded by {@link TimingRunListener}. Recording is always on, since it is cheap; reports are
+ * only written when {@link TimingRunListener} is used.
+ * </p>
+ */
+public final class TestTimings {
+    /** A named duration, as reported **/
+    private static final class Item {
+        private final String name;
+        private final long nanos;
+
+        private Item(final String name, final long nanos) {
+            this.name = name;
+            this.nanos = nanos;
+        }
+    }
+
+    /** Durations recorded for one test class, indexed by {@link TimingPhase#ordinal()} **/
+    private static final class ClassTimings {
+        private final LongAdder[] phases = new LongAdder[PHASES.length];
+
+        private ClassTimings() {
+            for (int i = 0; i < phases.length; i++) {
+                phases[i] = new LongAdder();
+            }
+        }
+
+        private long get(final TimingPhase phase) {
+            return phases[phase.ordinal()].sum();
+        }
+
+        /**
+         * Returns the wall time of the class. The class phase may not have been recorded, e.g.
+         * when only the method rule is used, so never report less than the sum of the parts.
+         *
+         * @return wall time of the class, in nanoseconds
+         */
+        private long getTotal() {
+            long parts = 0;
+            for (final TimingPhase phase : PHASES) {
+                if (phase != TimingPhase.CLASS) {
+                    parts += get(phase);
+                }
+            }
+            return Math.max(parts, get(TimingPhase.CLASS));
+        }
+    }
+
+    /** System property with the path of the JSON report **/
+    public static final String REPORT_PROPERTY = "spring.test.timing.report";
+
+    /** System property with the number of items included in the console summary **/
+    public static final String TOP_PROPERTY = "spring.test.timing.top";
+
+    private static final String DEFAULT_REPORT = "build/reports/test-timings.json";
+
+    private static final int DEFAULT_TOP = 10;
+
+    private static final TimingPhase[] PHASES = TimingPhase.values();
+
+    private static final Comparator<Item> SLOWEST_FIRST = new Comparator<Item>() {
+        @Override
+        public int compare(final Item lhs, final Item rhs) {
+            final int result = Long.compare(rhs.nanos, lhs.nanos);
+            return result != 0 ? result : lhs.name.compareTo(rhs.name);
+        }
+    };
+
+    /** System property set by Gradle to the id of each forked test JVM **/
+    private static final String GRADLE_WORKER_PROPERTY = "org.gradle.test.worker";
+
+    private static final ConcurrentMap<String, ClassTimings> CLASSES = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<String, LongAdder> TESTS = new ConcurrentHashMap<>();
+
+    /** True if something was recorded since the last report **/
+    private static final AtomicBoolean DIRTY = new AtomicBoolean();
+
+    /**
+     * Returns the file that the JSON report of this JVM is written to. When Gradle runs tests in
+     * several forked JVMs, each of them writes its own report, named after the configured report
+     * with the worker id appended, e.g. <code>test-timings-3.json</code>.
+     *
+     * @return file that the JSON report is written to
+     */
+    public static File getReportFile() {
+        final File report = new File(System.getProperty(REPORT_PROPERTY, DEFAULT_REPORT));
+        final String worker = System.getProperty(GRADLE_WORKER_PROPERTY);
+        if (worker == null || !worker.matches("[A-Za-z0-9_.-]+")) {
+            return report;
+        }
+        final String name = report.getName();
+        final int dot = name.lastIndexOf('.');
+        final String forked = dot > 0 ? name.substring(0, dot) + "-" + worker + name.substring(dot)
+                : name + "-" + worker;
+        return new File(report.getParentFile(), forked);
+    }
+
+    /**
+     * Reads the total duration of each test class from a JSON report written by
+     * {@link #writeReportIfNecessary()}.
+     *
+     * @param file
+     *            JSON report
+     * @return total milliseconds keyed by test class name, or an empty map if the file does not
+     *         exist
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public static Map<String, Long> readClassMillis(final File file) throws IOException {
+        final Map<String, Long> millis = new LinkedHashMap<>();
+        if (!file.isFile()) {
+            return millis;
+        }
+        final String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        try {
+            final Object classes = getMember(JsonStrings.parse(json), "classes");
+            if (!(classes instanceof List)) {
+                throw new IllegalArgumentException("Expected array of classes");
+            }
+            for (final Object entry : (List<?>) classes) {
+                final Object name = getMember(entry, "name");
+                final Object total = getMember(entry, "totalMillis");
+                if (!(name instanceof String) || !(total instanceof Long)) {
+                    throw new IllegalArgumentException("Expected name and totalMillis of class");
+                }
+                millis.put((String) name, (Long) total);
+            }
+        } catch (final IllegalArgumentException e) {
+            throw new IOException("Invalid test timing report " + file + ": " + e.getMessage(), e);
+        }
+        return millis;
+    }
+
+    /**
+     * Records time spent by a test class in the given phase.
+     *
+     * @param testClass
+     *            test class
+     * @param phase
+     *            phase
+     * @param nanos
+     *            elapsed time in nanoseconds
+     */
+    public static void record(final Class<?> testClass, final TimingPhase phase, final long nanos) {
+        final String name = testClass.getName();
+        ClassTimings timings = CLASSES.get(name);
+        if (timings == null) {
+            final ClassTimings newTimings = new ClassTimings();
+            timings = CLASSES.putIfAbsent(name, newTimings);
+            if (timings == null) {
+                timings = newTimings;
+            }
+        }
+        timings.phases[phase.ordinal()].add(nanos);
+        DIRTY.set(true);
+    }
+
+    /**
+     * Records the duration of a single test.
+     *
+     * @param test
+     *            test name, e.g. <code>method(com.example.SomeTest)</code>
+     * @param nanos
+     *            elapsed time in nanoseconds
+     */
+    public static void recordTest(final String test, final long nanos) {
+        LongAdder adder = TESTS.get(test);
+        if (adder == null) {
+            final LongAdder newAdder = new LongAdder();
+            adder = TESTS.putIfAbsent(test, newAdder);
+            if (adder == null) {
+                adder = newAdder;
+            }
+        }
+        adder.add(nanos);
+        DIRTY.set(true);
+    }
+
+    public static void reset() {
+        CLASSES.clear();
+        TESTS.clear();
+        DIRTY.set(false);
+    }
+
+    /**
+     * Returns all recorded timings as a JSON object, with classes and tests sorted slowest first.
+     *
+     * @return JSON report
+     */
+    public static String toJson() {
+        final StringBuilder buf = new StringBuilder(4096);
+        buf.append("{\"classes\":[");
+        final List<Item> classes = getSlowestClasses();
+        for (int i = 0; i < classes.size(); i++) {
+            final Item item = classes.get(i);
+            final ClassTimings timings = CLASSES.get(item.name);
+            if (i != 0) {
+                buf.append(',');
+            }
+            buf.append("\n{\"name\":").append(JsonStrings.quote(item.name));
+            buf.append(",\"totalMillis\":").append(toMillis(item.nanos));
+            long other = item.nanos;
+            for (final TimingPhase phase : PHASES) {
+                if (phase != TimingPhase.CLASS) {
+                    final long nanos = timings.get(phase);
+                    other -= nanos;
+                    buf.append(",\"").append(getJsonName(phase)).append("\":").append(toMillis(nanos));
+                }
+            }
+            buf.append(",\"otherMillis\":").append(toMillis(Math.max(0, other))).append('}');
+        }
+        buf.append("],\n\"tests\":[");
+        final List<Item> tests = getSlowestTests();
+        for (int i = 0; i < tests.size(); i++) {
+            final Item item = tests.get(i);
+            if (i != 0) {
+                buf.append(',');
+            }
+            buf.append("\n{\"name\":").append(JsonStrings.quote(item.name));
+            buf.append(",\"millis\":").append(toMillis(item.nanos)).append('}');
+        }
+        buf.append("]}\n");
+        return buf.toString();
+    }
+
+    /**
+     * Writes the JSON report and prints a summary of the slowest classes and tests, if anything
+     * was recorded since the last report.
+     */
+    public static void writeReportIfNecessary() {
+        if (!DIRTY.getAndSet(false)) {
+            return;
+        }
+
+        final File file = getReportFile();
+        try {
+            final File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                Files.createDirectories(parent.toPath());
+            }
+            write(file, toJson());
+        } catch (final IOException e) {
+            System.err.println("Unable to write test timing report to " + file + ": " + e);
+        }
+
+        // log configuration may already be shut down when called from a shutdown hook
+        printSummary(System.out, Integer.getInteger(TOP_PROPERTY, DEFAULT_TOP).intValue(), file);
+    }
+
+    private static Object getMember(final Object object, final String name) {
+        if (!(object instanceof Map)) {
+            throw new IllegalArgumentException("Expected object with member " + name);
+        }
+        return ((Map<?, ?>) object).get(name);
+    }
+
+    private static String getJsonName(final TimingPhase phase) {
+        return CaseFormat.UPPER_UNDERSCORE.to(CaseFormat.LOWER_CAMEL, phase.name()) + "Millis";
+    }
+
+    private static List<Item> getSlowestClasses() {
+        final List<Item> items = new ArrayList<>(CLASSES.size());
+        for (final Map.Entry<String, ClassTimings> entry : CLASSES.entrySet()) {
+            items.add(new Item(entry.getKey(), entry.getValue().getTotal()));
+        }
+        Collections.sort(items, SLOWEST_FIRST);
+        return items;
+    }
+
+    private static List<Item> getSlowestTests() {
+        final List<Item> items = new ArrayList<>(TESTS.size());
+        for (final Map.Entry<String, LongAdder> entry : TESTS.entrySet()) {
+            items.add(new Item(entry.getKey(), entry.getValue().sum()));
+        }
+        Collections.sort(items, SLOWEST_FIRST);
+        return items;
+    }
+
+    private static void printSummary(final PrintStream out, final int top, final File file) {
+        final List<Item> classes = getSlowestClasses();
+        final List<Item> tests = getSlowestTests();
+        final StringBuilder buf = new StringBuilder(1024);
+        buf.append("Slowest test classes (total, context load, before class, prepare instance, methods):\n");
+        for (final Item item : classes.subList(0, Math.min(top, classes.size()))) {
+            final ClassTimings timings = CLASSES.get(item.name);
+            buf.append(String.format(
+                    Locale.ROOT,
+                    "  %8dms %8dms %8dms %8dms %8dms  %s%n",
+                    Long.valueOf(toMillis(item.nanos)),
+                    Long.valueOf(toMillis(timings.get(TimingPhase.CONTEXT_LOAD))),
+                    Long.valueOf(toMillis(timings.get(TimingPhase.BEFORE_CLASS))),
+                    Long.valueOf(toMillis(timings.get(TimingPhase.PREPARE_INSTANCE))),
+                    Long.valueOf(toMillis(timings.get(TimingPhase.METHOD))),
+                    item.name));
+        }
+        buf.append("Slowest tests:\n");
+        for (final Item item : tests.subList(0, Math.min(top, tests.size()))) {
+            buf.append(String.format(Locale.ROOT, "  %8dms  %s%n", Long.valueOf(toMillis(item.nanos)), item.name));
+        }
+        buf.append("Full report: ").append(file.getAbsolutePath());
+        out.println(buf);
+    }
+
+    private static long toMillis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * Writes the given report to a temporary file next to the given file, and then moves it into
+     * place, so that readers never see a partially written report.
+     *
+     * @param file
+     *            report file
+     * @param json
+     *            report
+     * @throws IOException
+     *             if the report cannot be written
+     */
+    private static void write(final File file, final String json) throws IOException {
+        final Path target = file.getAbsoluteFile().toPath();
+        final Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, json.getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private TestTimings() {
+        // utility class
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.perf;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.runner.Description;
+import org.junit.runner.Result;
+import org.junit.runner.notification.RunListener;
+
+/**
+ * Records the wall time of every test and, when the test run finishes, writes a JSON report of
+ * the slowest test classes and tests, along with a console summary. Each class's time is split
+ * into the {@link TimingPhase phases} recorded by {@link TestTimings}.
+ *
+ * <p>
+ * The report is written to the file named by the {@value TestTimings#REPORT_PROPERTY} system
+ * property, one per forked JVM when Gradle forks several (see {@link TestTimings#getReportFile()}),
+ * and the summary lists the number of items given by the
+ * {@value TestTimings#TOP_PROPERTY} system property. Listeners attached with
+ * {@link com.arakelian.spring.test.annotation.WithRunListener} do not see the end of the test run,
+ * so the report is also written when the JVM exits.
+ * </p>
+ */
+public class TimingRunListener extends RunListener {
+    private static final AtomicBoolean SHUTDOWN_HOOK = new AtomicBoolean();
+
+    /** Start times of running tests, shared so that a test is recorded once per listener chain **/
+    private static final ConcurrentMap<Description, Long> STARTED = new ConcurrentHashMap<>();
+
+    public TimingRunListener() {
+        if (SHUTDOWN_HOOK.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread("test-timing-report") {
+                @Override
+                public void run() {
+                    TestTimings.writeReportIfNecessary();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void testFinished(final Description description) {
+        final Long start = STARTED.remove(description);
+        if (start != null) {
+            TestTimings.recordTest(description.getDisplayName(), System.nanoTime() - start.longValue());
+        }
+    }
+
+    @Override
+    public void testRunFinished(final Result result) {
+        TestTimings.writeReportIfNecessary();
+    }
+
+    @Override
+    public void testStarted(final Description description) {
+        STARTED.putIfAbsent(description, Long.valueOf(System.nanoTime()));
+    }
+}
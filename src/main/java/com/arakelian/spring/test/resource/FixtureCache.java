@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.resource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.BeansException;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+
+import com.arakelian.spring.test.util.ByteSizes;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.io.Resources;
+
+/**
+ * Bounded cache of parsed test fixtures, shared by all tests in the JVM. Each fixture is parsed
+ * once with the application context's {@link ObjectMapper}, or a default one if the context does
+ * not define exactly one, and cached by resource, target type, class loader and mapper.
+ *
+ * <p>
+ * This class requires Jackson, which is an optional dependency; it is only loaded when fixtures
+ * are used. Each entry holds the parsed fixture, estimated as {@value #WEIGHT_FACTOR} times the
+ * size of its resource file, and the resource file itself, from which copies are parsed. The total
+ * is bounded by the {@value #MAX_BYTES_PROPERTY} system property (by default, one eighth of the
+ * maximum heap size).
+ * </p>
+ *
+ * <p>
+ * Fixtures parsed with the {@link ObjectMapper} of an application context are removed when that
+ * context closes, so that the cache does not keep closed contexts reachable.
+ * </p>
+ */
+public final class FixtureCache {
+    /** Parsed fixture, along with its resource file for making copies **/
+    private static final class Fixture {
+        private final byte[] content;
+        private final Object value;
+        private final int weight;
+
+        private Fixture(final byte[] content, final Object value, final int weight) {
+            this.content = content;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /** Cache key; class loader and mapper are compared by identity **/
+    private static final class Key {
+        private final String url;
+        private final Type type;
+        private final ClassLoader classLoader;
+        private final ObjectMapper mapper;
+
+        private Key(final String url, final Type type, final ClassLoader classLoader, final ObjectMapper mapper) {
+            this.url = url;
+            this.type = type;
+            this.classLoader = classLoader;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return url.equals(other.url) && type.equals(other.type) && classLoader == other.classLoader
+                    && mapper == other.mapper;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = url.hashCode();
+            result = 31 * result + type.hashCode();
+            result = 31 * result + System.identityHashCode(classLoader);
+            result = 31 * result + System.identityHashCode(mapper);
+            return result;
+        }
+    }
+
+    /** System property that sets the byte budget of cached fixtures **/
+    public static final String MAX_BYTES_PROPERTY = "spring.test.fixtureCache.maxBytes";
+
+    /** Estimated ratio of the size of a parsed fixture to the size of its resource file **/
+    public static final int WEIGHT_FACTOR = 4;
+
+    private static final ObjectMapper DEFAULT_MAPPER = new ObjectMapper();
+
+    private static final FixtureCache DEFAULT = new FixtureCache(
+            ByteSizes.getBytes(MAX_BYTES_PROPERTY, Runtime.getRuntime().maxMemory() / 8));
+
+    /**
+     * Returns the cache shared by all tests in the JVM.
+     *
+     * @return the shared cache
+     */
+    public static FixtureCache getDefault() {
+        return DEFAULT;
+    }
+
+    private static ObjectMapper getObjectMapper(final ApplicationContext applicationContext) {
+        if (applicationContext != null) {
+            try {
+                return applicationContext.getBean(ObjectMapper.class);
+            } catch (final BeansException e) {
+                // no mapper, or more than one without a primary
+            }
+        }
+        return DEFAULT_MAPPER;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object readOnly(final Object value) {
+        if (value instanceof List) {
+            return Collections.unmodifiableList((List<Object>) value);
+        } else if (value instanceof SortedSet) {
+            return Collections.unmodifiableSortedSet((SortedSet<Object>) value);
+        } else if (value instanceof Set) {
+            return Collections.unmodifiableSet((Set<Object>) value);
+        } else if (value instanceof SortedMap) {
+            return Collections.unmodifiableSortedMap((SortedMap<Object, Object>) value);
+        } else if (value instanceof Map) {
+            return Collections.unmodifiableMap((Map<Object, Object>) value);
+        }
+        return value;
+    }
+
+    private final long maxBytes;
+
+    private final Cache<Key, Fixture> cache;
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private final AtomicLong weightBytes = new AtomicLong();
+
+    /** Contexts whose fixtures are removed when they close; guarded by itself **/
+    private final Set<ApplicationContext> contexts = Collections
+            .newSetFromMap(new WeakHashMap<ApplicationContext, Boolean>());
+
+    private FixtureCache(final long maxBytes) {
+        this.maxBytes = maxBytes;
+
+        // a single segment, since Guava splits the weight budget between segments and would evict
+        // any fixture heavier than its segment's share as soon as it is inserted
+        this.cache = CacheBuilder.newBuilder() //
+                .concurrencyLevel(1) //
+                .maximumWeight(maxBytes) //
+                .weigher(new Weigher<Key, Fixture>() {
+                    @Override
+                    public int weigh(final Key key, final Fixture value) {
+                        return value.weight;
+                    }
+                }) //
+                .removalListener(new RemovalListener<Key, Fixture>() {
+                    @Override
+                    public void onRemoval(final RemovalNotification<Key, Fixture> notification) {
+                        weightBytes.addAndGet(-notification.getValue().weight);
+                        if (notification.wasEvicted()) {
+                            evictionCount.incrementAndGet();
+                        }
+                    }
+                }) //
+                .recordStats() //
+                .build();
+    }
+
+    /**
+     * Returns the fixture at the given URL, parsed into the given type.
+     *
+     * @param applicationContext
+     *            application context whose {@link ObjectMapper} is used, may be null
+     * @param url
+     *            resource URL
+     * @param type
+     *            target type, which may be generic
+     * @param classLoader
+     *            class loader used to find the resource
+     * @param mode
+     *            how the cached fixture is handed to the caller
+     * @return parsed fixture
+     * @throws UncheckedIOException
+     *             if the fixture cannot be read or parsed
+     */
+    public Object get(
+            final ApplicationContext applicationContext,
+            final URL url,
+            final Type type,
+            final ClassLoader classLoader,
+            final FixtureMode mode) {
+        final ObjectMapper mapper = getObjectMapper(applicationContext);
+        final JavaType javaType = mapper.getTypeFactory().constructType(type);
+        final Key key = new Key(url.toExternalForm(), type, classLoader, mapper);
+
+        Fixture fixture = cache.getIfPresent(key);
+        try {
+            if (fixture == null) {
+                fixture = parse(mapper, url, javaType);
+                if (fixture.weight <= maxBytes) {
+                    if (mapper != DEFAULT_MAPPER) {
+                        invalidateOnClose(applicationContext, mapper);
+                    }
+                    weightBytes.addAndGet(fixture.weight);
+                    cache.put(key, fixture);
+                }
+            }
+
+            switch (mode) {
+            case COPY:
+                return mapper.readerFor(javaType).readValue(fixture.content);
+            case READ_ONLY:
+                return readOnly(fixture.value);
+            case SHARED:
+            default:
+                return fixture.value;
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Cannot parse fixture " + url + " as " + javaType, e);
+        }
+    }
+
+    public ResourceCacheStats getStats() {
+        final CacheStats stats = cache.stats();
+        return new ResourceCacheStats(cache.size(), weightBytes.get(), maxBytes, stats.hitCount(),
+                stats.missCount(), evictionCount.get());
+    }
+
+    /**
+     * Removes all cached fixtures.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Removes all fixtures parsed with the given mapper.
+     *
+     * @param mapper
+     *            object mapper
+     */
+    private void invalidate(final ObjectMapper mapper) {
+        final Iterator<Key> keys = cache.asMap().keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().mapper == mapper) {
+                keys.remove();
+            }
+        }
+    }
+
+    private void invalidateOnClose(final ApplicationContext applicationContext, final ObjectMapper mapper) {
+        if (!(applicationContext instanceof ConfigurableApplicationContext)) {
+            return;
+        }
+        synchronized (contexts) {
+            if (!contexts.add(applicationContext)) {
+                return;
+            }
+        }
+        final ConfigurableApplicationContext context = (ConfigurableApplicationContext) applicationContext;
+        context.addApplicationListener(new ApplicationListener<ContextClosedEvent>() {
+            @Override
+            public void onApplicationEvent(final ContextClosedEvent event) {
+                // events of child contexts are also published to their parents
+                if (event.getApplicationContext() == context) {
+                    invalidate(mapper);
+                }
+            }
+        });
+    }
+
+    private Fixture parse(final ObjectMapper mapper, final URL url, final JavaType javaType) throws IOException {
+        final byte[] content = Resources.toByteArray(url);
+        final Object value = mapper.readerFor(javaType).readValue(content);
+        final long weight = (WEIGHT_FACTOR + 1L) * content.length;
+        return new Fixture(content, value, (int) Math.min(Integer.MAX_VALUE, weight));
+    }
+}
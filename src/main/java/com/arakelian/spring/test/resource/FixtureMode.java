@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.resource;
+
+/**
+ * How a cached fixture is handed to callers of
+ * {@link com.arakelian.spring.test.AbstractSpringTest#getFixture(String, java.lang.reflect.Type, FixtureMode)}.
+ */
+public enum FixtureMode {
+    /** The cached instance itself, which callers must never modify **/
+    SHARED,
+
+    /**
+     * A read-only view of the cached instance: top-level lists, sets and maps are wrapped so that
+     * they cannot be modified, while other types are returned as they are
+     **/
+    READ_ONLY,
+
+    /** A new instance, parsed again from the cached resource bytes, which callers may modify freely **/
+    COPY;
+}
@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.resource;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.arakelian.spring.test.util.ByteSizes;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.io.Resources;
+
+/**
+ * Bounded cache of decoded UTF-8 resources, shared by all tests in the JVM, along with streaming
+ * accessors that avoid copying large resources onto the heap.
+ *
+ * <p>
+ * Cached text is weighed by its approximate size in memory, and the total is bounded by the
+ * {@value #MAX_BYTES_PROPERTY} system property (by default, one eighth of the maximum heap size).
+ * Resources larger than the budget are never cached.
+ * </p>
+ */
+public final class ResourceCache {
+    /** System property that sets the byte budget of cached resources **/
+    public static final String MAX_BYTES_PROPERTY = "spring.test.resourceCache.maxBytes";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResourceCache.class);
+
+    /** Approximate overhead of a cached String and its cache entry **/
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private static final ResourceCache DEFAULT = new ResourceCache(
+            ByteSizes.getBytes(MAX_BYTES_PROPERTY, Runtime.getRuntime().maxMemory() / 8));
+
+    /**
+     * Returns the cache shared by all tests in the JVM.
+     *
+     * @return the shared cache
+     */
+    public static ResourceCache getDefault() {
+        return DEFAULT;
+    }
+
+    static int weigh(final String text) {
+        // Java 8 strings use two bytes per character
+        return (int) Math.min(Integer.MAX_VALUE, 2L * text.length() + ENTRY_OVERHEAD);
+    }
+
+    private static File toFile(final URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(url.toURI());
+        } catch (final URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private final long maxBytes;
+
+    private final Cache<String, String> cache;
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private final AtomicLong weightBytes = new AtomicLong();
+
+    private ResourceCache(final long maxBytes) {
+        this.maxBytes = maxBytes;
+        // a single segment, since Guava splits the weight budget between segments and would evict
+        // any resource heavier than its segment's share as soon as it is inserted
+        this.cache = CacheBuilder.newBuilder() //
+                .concurrencyLevel(1) //
+                .maximumWeight(maxBytes) //
+                .weigher(new Weigher<String, String>() {
+                    @Override
+                    public int weigh(final String key, final String value) {
+                        return ResourceCache.weigh(value);
+                    }
+                }) //
+                .removalListener(new RemovalListener<String, String>() {
+                    @Override
+                    public void onRemoval(final RemovalNotification<String, String> notification) {
+                        weightBytes.addAndGet(-weigh(notification.getValue()));
+                        if (notification.wasEvicted()) {
+                            evictionCount.incrementAndGet();
+                        }
+                    }
+                }) //
+                .recordStats() //
+                .build();
+    }
+
+    /**
+     * Returns the resource at the given URL as a read-only byte buffer. File resources are
+     * memory-mapped rather than copied onto the heap.
+     *
+     * @param url
+     *            resource URL
+     * @return read-only byte buffer with the contents of the resource
+     * @throws UncheckedIOException
+     *             if the resource cannot be read
+     */
+    public ByteBuffer getByteBuffer(final URL url) {
+        try {
+            final File file = toFile(url);
+            if (file != null) {
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                    // mapping remains valid after the channel is closed
+                    return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+            }
+            return ByteBuffer.wrap(Resources.toByteArray(url)).asReadOnlyBuffer();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Cannot read resource: " + url, e);
+        }
+    }
+
+    /**
+     * Returns a stream of the lines of the resource at the given URL, which must be closed after
+     * use. If the resource is cached, the lines are read from memory.
+     *
+     * @param url
+     *            resource URL
+     * @return stream of lines
+     * @throws UncheckedIOException
+     *             if the resource cannot be read
+     */
+    public Stream<String> getLines(final URL url) {
+        final BufferedReader reader = new BufferedReader(getReader(url));
+        return reader.lines().onClose(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    reader.close();
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns a reader for the resource at the given URL. If the resource is cached, it is read
+     * from memory, otherwise it is streamed without being cached.
+     *
+     * @param url
+     *            resource URL
+     * @return reader for the resource
+     * @throws UncheckedIOException
+     *             if the resource cannot be opened
+     */
+    public Reader getReader(final URL url) {
+        // only an optimization, so do not count it as a cache hit or miss
+        final String text = cache.asMap().get(url.toExternalForm());
+        if (text != null) {
+            return new StringReader(text);
+        }
+        try {
+            final File file = toFile(url);
+            if (file != null) {
+                return Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+            }
+            return new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Cannot read resource: " + url, e);
+        }
+    }
+
+    public ResourceCacheStats getStats() {
+        final CacheStats stats = cache.stats();
+        return new ResourceCacheStats(cache.size(), weightBytes.get(), maxBytes, stats.hitCount(),
+                stats.missCount(), evictionCount.get());
+    }
+
+    /**
+     * Returns the resource at the given URL as a string, decoding it only if it is not already
+     * cached.
+     *
+     * @param url
+     *            resource URL
+     * @return contents of resource
+     * @throws IllegalStateException
+     *             if the resource cannot be read
+     */
+    public String getString(final URL url) {
+        final String key = url.toExternalForm();
+        String text = cache.getIfPresent(key);
+        if (text != null) {
+            return text;
+        }
+
+        try {
+            text = Resources.toString(url, StandardCharsets.UTF_8);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Cannot read resource: " + url, e);
+        }
+
+        // never cache resources larger than the budget, since Guava would evict everything else
+        // before evicting them
+        final int weight = weigh(text);
+        if (weight <= maxBytes) {
+            weightBytes.addAndGet(weight);
+            cache.put(key, text);
+        } else {
+            LOGGER.debug("Not caching resource {} ({})", url, ByteSizes.format(weight));
+        }
+        return text;
+    }
+
+    /**
+     * Removes all cached resources.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.resource;
+
+/**
+ * Point-in-time statistics for a {@link ResourceCache}.
+ */
+public final class ResourceCacheStats {
+    private final long size;
+    private final long weightBytes;
+    private final long maxBytes;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+
+    ResourceCacheStats(
+            final long size,
+            final long weightBytes,
+            final long maxBytes,
+            final long hitCount,
+            final long missCount,
+            final long evictionCount) {
+        this.size = size;
+        this.weightBytes = weightBytes;
+        this.maxBytes = maxBytes;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the estimated number of bytes used by cached entries.
+     *
+     * @return estimated number of bytes used by cached entries
+     */
+    public long getWeightBytes() {
+        return weightBytes;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("ResourceCacheStats [");
+        builder.append("size=").append(size);
+        builder.append(", weightBytes=").append(weightBytes);
+        builder.append(", maxBytes=").append(maxBytes);
+        builder.append(", hitCount=").append(hitCount);
+        builder.append(", missCount=").append(missCount);
+        builder.append(", evictionCount=").append(evictionCount);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.rule;
+
+import org.junit.runners.model.Statement;
+
+import com.arakelian.spring.test.context.ContextPrewarmer;
+
+/**
+ * Waits for a background pre-warm of the test class's context to finish, so that the test class
+ * does not load the same context a second time.
+ */
+public class AwaitContextPrewarm extends Statement {
+    private final Statement next;
+    private final Class<?> testClass;
+
+    public AwaitContextPrewarm(final Statement next, final Class<?> testClass) {
+        this.next = next;
+        this.testClass = testClass;
+    }
+
+    @Override
+    public void evaluate() throws Throwable {
+        ContextPrewarmer.getDefault().await(testClass);
+        next.evaluate();
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.rule;
+
+import org.junit.internal.AssumptionViolatedException;
+import org.junit.runners.model.Statement;
+
+import com.arakelian.spring.test.logging.TestLogBuffer;
+
+/**
+ * Buffers log events while the next statement runs, and writes them out only if it fails; see
+ * {@link TestLogBuffer}.
+ */
+public class BufferTestLogs extends Statement {
+    private final Statement next;
+    private final String name;
+
+    public BufferTestLogs(final Statement next, final String name) {
+        this.next = next;
+        this.name = name;
+    }
+
+    @Override
+    public void evaluate() throws Throwable {
+        TestLogBuffer.start();
+        try {
+            next.evaluate();
+        } catch (final AssumptionViolatedException e) {
+            // skipped tests did not fail
+            TestLogBuffer.discard();
+            throw e;
+        } catch (final Throwable t) {
+            TestLogBuffer.flush("Log events of failed " + name);
+            throw t;
+        }
+        TestLogBuffer.discard();
+    }
+}
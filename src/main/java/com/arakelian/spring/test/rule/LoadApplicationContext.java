@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.rule;
+
+import org.junit.runners.model.Statement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.context.MergedContextConfiguration;
+import org.springframework.test.context.TestContextManager;
+import org.springframework.test.context.cache.ContextCache;
+
+import com.arakelian.spring.test.context.ContextCaches;
+import com.arakelian.spring.test.context.ContextKeys;
+import com.arakelian.spring.test.context.ContextPrewarmer;
+import com.arakelian.spring.test.context.HeapAwareContextEvictor;
+import com.arakelian.spring.test.jfr.TestEvent;
+import com.arakelian.spring.test.jfr.TestEventPhase;
+import com.arakelian.spring.test.jfr.TestEvents;
+import com.arakelian.spring.test.perf.TestTimings;
+import com.arakelian.spring.test.perf.TimingPhase;
+
+/**
+ * Loads the test class's application context once the before-class callbacks have run, and
+ * records its estimated size with the {@link HeapAwareContextEvictor}.
+ *
+ * <p>
+ * If the context fails to load, the failure is left for the test methods to report, exactly as if
+ * this statement was not present.
+ * </p>
+ */
+public class LoadApplicationContext extends Statement {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadApplicationContext.class);
+
+    private final Statement next;
+    private final Class<?> testClass;
+    private final TestContextManager testContextManager;
+
+    public LoadApplicationContext(
+            final Statement next,
+            final Class<?> testClass,
+            final TestContextManager testContextManager) {
+        this.next = next;
+        this.testClass = testClass;
+        this.testContextManager = testContextManager;
+    }
+
+    @Override
+    public void evaluate() throws Throwable {
+        load();
+        next.evaluate();
+    }
+
+    private void load() {
+        final ContextCache contextCache = ContextCaches.getDefaultContextCache();
+        final int missesBefore = contextCache.getMissCount();
+        final long heapBefore = HeapAwareContextEvictor.getUsedHeap();
+        final boolean warming = ContextPrewarmer.getDefault().isWarming();
+        final TestEvent event = TestEvents.begin(TestEventPhase.CONTEXT_LOAD, testClass, null);
+        final long start = System.nanoTime();
+        try {
+            testContextManager.getTestContext().getApplicationContext();
+        } catch (final RuntimeException e) {
+            LOGGER.debug("Unable to load application context of test class [{}]", testClass.getName(), e);
+            return;
+        } finally {
+            TestTimings.record(testClass, TimingPhase.CONTEXT_LOAD, System.nanoTime() - start);
+            event.finish();
+        }
+
+        // heap deltas are meaningless while another context loads in the background
+        final boolean loaded = contextCache.getMissCount() != missesBefore;
+        final long estimatedBytes = loaded && !warming && !ContextPrewarmer.getDefault().isWarming()
+                ? Math.max(0, HeapAwareContextEvictor.getUsedHeap() - heapBefore)
+                : -1;
+        final MergedContextConfiguration config = ContextKeys.getMergedContextConfiguration(testClass);
+        HeapAwareContextEvictor.getDefault().acquire(testClass, config, estimatedBytes);
+    }
+}
@@ -28,6 +28,8 @@ import org.junit.runners.model.Statement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.arakelian.spring.test.jfr.TestEventPhase;
+
 public class OrderedRules implements TestRule {
     private static interface Ordered {
         public int getOrder();
@@ -94,10 +96,13 @@ public class OrderedRules implements TestRule {
             }
         });
 
+        // null when applied as a class rule
+        final String testMethod = description.getMethodName();
         for (final OrderedRule each : sortedRules) {
             final Class<?> testClass = description.getTestClass();
             LOGGER.debug("Applying {} to test class [{}]", each, testClass.getName());
-            base = each.apply(base, description);
+            base = new RecordTestEvent(each.apply(base, description), TestEventPhase.RULE, testClass, testMethod,
+                    each.delegate.getClass().getSimpleName(), each.order);
         }
         return base;
     }
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.rule;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.runners.model.RunnerScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.test.context.TestContextManager;
+import org.springframework.util.Assert;
+
+import com.arakelian.spring.test.annotation.ParallelMethods;
+
+/**
+ * Runs the test methods of a class on a bounded pool of threads; see {@link ParallelMethods}.
+ *
+ * <p>
+ * Spring's {@link TestContextManager} keeps the current test instance and method in a single
+ * {@link org.springframework.test.context.TestContext}, so it cannot be shared by methods running at
+ * the same time. Each pool thread therefore gets its own {@link TestContextManager} for the test
+ * class, used for preparing test instances and for the before and after test method callbacks;
+ * they all obtain the same application context from Spring's context cache. The before and after
+ * class callbacks still use the class's own {@link TestContextManager}, once.
+ * </p>
+ */
+public class ParallelMethodsScheduler implements RunnerScheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelMethodsScheduler.class);
+
+    /** Test context managers of the current pool thread, or null on other threads **/
+    private static final ThreadLocal<Map<Class<?>, TestContextManager>> WORKER_MANAGERS = new ThreadLocal<>();
+
+    /**
+     * Returns true if the test methods of the given class run in parallel.
+     *
+     * @param testClass
+     *            test class
+     * @return true if the given class is annotated with {@link ParallelMethods}
+     */
+    public static boolean isParallel(final Class<?> testClass) {
+        return AnnotationUtils.findAnnotation(testClass, ParallelMethods.class) != null;
+    }
+
+    /**
+     * Returns a scheduler for the given test class if it is annotated with
+     * {@link ParallelMethods}.
+     *
+     * @param testClass
+     *            test class
+     * @return scheduler for the given test class, or null if its methods run sequentially
+     */
+    public static ParallelMethodsScheduler forClass(final Class<?> testClass) {
+        final ParallelMethods parallelMethods = AnnotationUtils.findAnnotation(testClass, ParallelMethods.class);
+        return parallelMethods != null ? new ParallelMethodsScheduler(testClass, parallelMethods.threads()) : null;
+    }
+
+    /**
+     * Returns the {@link TestContextManager} of the current pool thread for the given test class.
+     *
+     * @param testClass
+     *            test class
+     * @return test context manager of the current pool thread, or null if the current thread does
+     *         not belong to a {@link ParallelMethodsScheduler}
+     */
+    public static TestContextManager getTestContextManager(final Class<?> testClass) {
+        final Map<Class<?>, TestContextManager> managers = WORKER_MANAGERS.get();
+        if (managers == null) {
+            return null;
+        }
+        TestContextManager manager = managers.get(testClass);
+        if (manager == null) {
+            manager = new TestContextManager(testClass);
+            managers.put(testClass, manager);
+        }
+        return manager;
+    }
+
+    private final Class<?> testClass;
+
+    private final int threads;
+
+    private final ExecutorService executor;
+
+    private final List<Future<?>> futures = new ArrayList<>();
+
+    /**
+     * Creates a scheduler for the given test class.
+     *
+     * @param testClass
+     *            test class
+     * @param threads
+     *            maximum number of methods run at the same time, or zero for the number of
+     *            available processors
+     */
+    public ParallelMethodsScheduler(final Class<?> testClass, final int threads) {
+        Assert.notNull(testClass, "testClass must not be null");
+        Assert.isTrue(threads >= 0, "threads must be non-negative");
+        this.testClass = testClass;
+        this.threads = threads != 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        final AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        WORKER_MANAGERS.set(new HashMap<Class<?>, TestContextManager>());
+                        try {
+                            runnable.run();
+                        } finally {
+                            WORKER_MANAGERS.remove();
+                        }
+                    }
+                }, testClass.getSimpleName() + "-" + count.incrementAndGet());
+                thread.setContextClassLoader(contextClassLoader);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    @Override
+    public void finished() {
+        executor.shutdown();
+        try {
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (final InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            // failures of test methods are reported to the run notifier; this is a runner bug
+            executor.shutdownNow();
+            throw new IllegalStateException("Unable to run test methods of " + testClass.getName(), e.getCause());
+        }
+        LOGGER.debug("Ran {} test methods of {} on {} threads", futures.size(), testClass.getName(), threads);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    @Override
+    public void schedule(final Runnable childStatement) {
+        futures.add(executor.submit(childStatement));
+    }
+}
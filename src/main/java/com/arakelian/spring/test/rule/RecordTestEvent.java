@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.rule;
+
+import org.junit.runners.model.Statement;
+
+import com.arakelian.spring.test.jfr.TestEvent;
+import com.arakelian.spring.test.jfr.TestEventPhase;
+import com.arakelian.spring.test.jfr.TestEvents;
+
+/**
+ * Records the next statement as a Java Flight Recorder event with {@link TestEvents}, whether or
+ * not it succeeds.
+ */
+public class RecordTestEvent extends Statement {
+    private final Statement next;
+    private final TestEventPhase phase;
+    private final Class<?> testClass;
+    private final String testMethod;
+    private final String rule;
+    private final int order;
+
+    public RecordTestEvent(
+            final Statement next,
+            final TestEventPhase phase,
+            final Class<?> testClass,
+            final String testMethod) {
+        this(next, phase, testClass, testMethod, null, 0);
+    }
+
+    public RecordTestEvent(
+            final Statement next,
+            final TestEventPhase phase,
+            final Class<?> testClass,
+            final String testMethod,
+            final String rule,
+            final int order) {
+        this.next = next;
+        this.phase = phase;
+        this.testClass = testClass;
+        this.testMethod = testMethod;
+        this.rule = rule;
+        this.order = order;
+    }
+
+    @Override
+    public void evaluate() throws Throwable {
+        final TestEvent event = TestEvents.begin(phase, testClass, testMethod, rule, order);
+        try {
+            next.evaluate();
+        } finally {
+            event.finish();
+        }
+    }
+}
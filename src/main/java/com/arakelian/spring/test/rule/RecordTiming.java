@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.rule;
+
+import org.junit.runners.model.Statement;
+
+import com.arakelian.spring.test.perf.TestTimings;
+import com.arakelian.spring.test.perf.TimingPhase;
+
+/**
+ * Records the time taken by the next statement with {@link TestTimings}, whether or not it
+ * succeeds.
+ */
+public class RecordTiming extends Statement {
+    private final Statement next;
+    private final Class<?> testClass;
+    private final TimingPhase phase;
+
+    public RecordTiming(final Statement next, final Class<?> testClass, final TimingPhase phase) {
+        this.next = next;
+        this.testClass = testClass;
+        this.phase = phase;
+    }
+
+    @Override
+    public void evaluate() throws Throwable {
+        final long start = System.nanoTime();
+        try {
+            next.evaluate();
+        } finally {
+            TestTimings.record(testClass, phase, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.rule;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.MultipleFailureException;
+import org.junit.runners.model.Statement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import com.arakelian.spring.test.annotation.Concurrent;
+
+/**
+ * Runs a test method annotated with {@link Concurrent} on several threads at once, reports the
+ * monitor contention of each thread, and fails with the failures of all threads.
+ *
+ * <p>
+ * Threads that have not finished by the timeout are interrupted, and given
+ * {@value #TERMINATION_GRACE_MILLIS}ms to stop. A thread that is still running after that is
+ * reported with its stack trace, since it may go on using the application context while later
+ * tests run.
+ * </p>
+ */
+public class RunConcurrent extends Statement {
+    /** Runs the next statement on one thread, and measures its contention **/
+    private final class Worker extends Thread {
+        private final CountDownLatch ready;
+        private final CountDownLatch start;
+        private final List<Throwable> errors;
+        private long blockedCount;
+        private long blockedMillis;
+        private long waitedCount;
+        private long waitedMillis;
+
+        private Worker(
+                final String name,
+                final CountDownLatch ready,
+                final CountDownLatch start,
+                final List<Throwable> errors) {
+            super(name);
+            this.ready = ready;
+            this.start = start;
+            this.errors = errors;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            ready.countDown();
+            try {
+                start.await();
+            } catch (final InterruptedException e) {
+                errors.add(e);
+                return;
+            }
+
+            final ThreadInfo before = getThreadInfo();
+            try {
+                for (int i = 0, n = concurrent.iterations(); i < n && !isInterrupted(); i++) {
+                    next.evaluate();
+                }
+            } catch (final Throwable t) {
+                errors.add(t);
+            } finally {
+                final ThreadInfo after = getThreadInfo();
+                if (before != null && after != null) {
+                    blockedCount = after.getBlockedCount() - before.getBlockedCount();
+                    blockedMillis = after.getBlockedTime() - before.getBlockedTime();
+                    waitedCount = after.getWaitedCount() - before.getWaitedCount();
+                    waitedMillis = after.getWaitedTime() - before.getWaitedTime();
+                }
+            }
+        }
+
+        private ThreadInfo getThreadInfo() {
+            return CONTENTION_BEAN != null ? CONTENTION_BEAN.getThreadInfo(getId()) : null;
+        }
+    }
+
+    /** Time that interrupted threads are given to stop **/
+    static final long TERMINATION_GRACE_MILLIS = 5000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RunConcurrent.class);
+
+    /** Thread bean that reports blocked and waited times, or null if not supported by this JVM **/
+    private static final ThreadMXBean CONTENTION_BEAN = getContentionBean();
+
+    private static ThreadMXBean getContentionBean() {
+        try {
+            final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean.isThreadContentionMonitoringSupported()) {
+                if (!bean.isThreadContentionMonitoringEnabled()) {
+                    bean.setThreadContentionMonitoringEnabled(true);
+                }
+                return bean;
+            }
+        } catch (final UnsupportedOperationException | SecurityException e) {
+            LOGGER.debug("Thread contention monitoring not available", e);
+        }
+        return null;
+    }
+
+    private final Statement next;
+    private final FrameworkMethod method;
+    private final Concurrent concurrent;
+
+    public RunConcurrent(final Statement next, final FrameworkMethod method, final Concurrent concurrent) {
+        Assert.isTrue(concurrent.threads() > 0, "threads must be positive");
+        this.next = next;
+        this.method = method;
+        this.concurrent = concurrent;
+    }
+
+    @Override
+    public void evaluate() throws Throwable {
+        final int threads = concurrent.threads();
+        final CountDownLatch ready = new CountDownLatch(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        final List<Worker> workers = new ArrayList<>(threads);
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        for (int i = 0; i < threads; i++) {
+            final Worker worker = new Worker(method.getName() + "-" + i, ready, start, errors);
+            worker.setContextClassLoader(contextClassLoader);
+            workers.add(worker);
+            worker.start();
+        }
+
+        // release all threads at once, to maximize contention
+        ready.await();
+        final long begin = System.nanoTime();
+        start.countDown();
+
+        final long deadline = begin + TimeUnit.MILLISECONDS.toNanos(concurrent.timeoutMillis());
+        final List<Worker> interrupted = new ArrayList<>();
+        for (final Worker worker : workers) {
+            worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            if (worker.isAlive()) {
+                worker.interrupt();
+                interrupted.add(worker);
+                errors.add(new AssertionError(method.getName() + ": thread " + worker.getName()
+                        + " did not finish within " + concurrent.timeoutMillis() + "ms"));
+            }
+        }
+        awaitTermination(interrupted, errors);
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+        long totalBlockedMillis = 0;
+        final StringBuilder report = new StringBuilder();
+        for (final Worker worker : workers) {
+            totalBlockedMillis += worker.blockedMillis;
+            report.append("\n  ").append(worker.getName()) //
+                    .append(": blocked ").append(worker.blockedCount).append(" times for ")
+                    .append(worker.blockedMillis).append("ms, waited ").append(worker.waitedCount)
+                    .append(" times for ").append(worker.waitedMillis).append("ms");
+        }
+        LOGGER.info(
+                "{}: {} threads x {} iterations in {}ms with {} failures; {}",
+                method.getName(),
+                Integer.valueOf(threads),
+                Integer.valueOf(concurrent.iterations()),
+                Long.valueOf(elapsedMillis),
+                Integer.valueOf(errors.size()),
+                CONTENTION_BEAN != null ? "contention:" + report : "contention monitoring not available");
+
+        if (concurrent.maxBlockedMillis() >= 0 && CONTENTION_BEAN != null
+                && totalBlockedMillis > concurrent.maxBlockedMillis()) {
+            errors.add(new AssertionError(method.getName() + ": threads were blocked for " + totalBlockedMillis
+                    + "ms, which exceeds " + concurrent.maxBlockedMillis() + "ms"));
+        }
+        MultipleFailureException.assertEmpty(new ArrayList<>(errors));
+    }
+
+    /**
+     * Waits for interrupted threads to stop, and reports those that are still running after the
+     * grace period.
+     *
+     * @param interrupted
+     *            threads that were interrupted
+     * @param errors
+     *            failures, to which threads that are still running are added
+     * @throws InterruptedException
+     *             if the current thread is interrupted while waiting
+     */
+    private void awaitTermination(final List<Worker> interrupted, final List<Throwable> errors)
+            throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TERMINATION_GRACE_MILLIS);
+        for (final Worker worker : interrupted) {
+            worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            if (worker.isAlive()) {
+                final AssertionError error = new AssertionError(method.getName() + ": thread " + worker.getName()
+                        + " is still running " + TERMINATION_GRACE_MILLIS + "ms after it was interrupted, and may "
+                        + "affect later tests");
+                error.setStackTrace(worker.getStackTrace());
+                LOGGER.error("{}", error.getMessage(), error);
+                errors.add(error);
+            }
+        }
+    }
+}
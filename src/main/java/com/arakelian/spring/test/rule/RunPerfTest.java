@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.rule;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.arakelian.spring.test.annotation.PerfTest;
+import com.arakelian.spring.test.perf.LatencyHistogram;
+
+/**
+ * Runs a test method annotated with {@link PerfTest} as a micro-benchmark, and fails when any of
+ * the configured thresholds are exceeded.
+ */
+public class RunPerfTest extends Statement {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RunPerfTest.class);
+
+    /** Thread bean that can report allocated bytes, or null if not supported by this JVM **/
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = getAllocationBean();
+
+    private static com.sun.management.ThreadMXBean getAllocationBean() {
+        try {
+            final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+                if (sunBean.isThreadAllocatedMemorySupported()) {
+                    if (!sunBean.isThreadAllocatedMemoryEnabled()) {
+                        sunBean.setThreadAllocatedMemoryEnabled(true);
+                    }
+                    return sunBean;
+                }
+            }
+        } catch (final LinkageError | UnsupportedOperationException | SecurityException e) {
+            LOGGER.debug("Thread allocation measurement not available", e);
+        }
+        return null;
+    }
+
+    private static long getAllocatedBytes() {
+        return ALLOCATION_BEAN != null ? ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId())
+                : 0;
+    }
+
+    private final Statement next;
+    private final FrameworkMethod method;
+    private final PerfTest perfTest;
+
+    public RunPerfTest(final Statement next, final FrameworkMethod method, final PerfTest perfTest) {
+        this.next = next;
+        this.method = method;
+        this.perfTest = perfTest;
+    }
+
+    @Override
+    public void evaluate() throws Throwable {
+        for (int i = 0, n = perfTest.warmupIterations(); i < n; i++) {
+            next.evaluate();
+        }
+
+        final int iterations = perfTest.iterations();
+        final LatencyHistogram histogram = new LatencyHistogram();
+        long allocatedBytes = 0;
+        for (int i = 0; i < iterations; i++) {
+            final long bytes = getAllocatedBytes();
+            final long start = System.nanoTime();
+            next.evaluate();
+            histogram.record(System.nanoTime() - start);
+            allocatedBytes += getAllocatedBytes() - bytes;
+        }
+
+        final long allocatedPerIteration = iterations != 0 ? allocatedBytes / iterations : 0;
+        final TimeUnit unit = perfTest.unit();
+        LOGGER.info(
+                "{}: {} iterations ({} warmup); mean={}us p50={}us p90={}us p99={}us max={}us allocated={}",
+                method.getName(),
+                iterations,
+                perfTest.warmupIterations(),
+                format(histogram.getMean(TimeUnit.MICROSECONDS)),
+                format(histogram.getPercentile(50, TimeUnit.MICROSECONDS)),
+                format(histogram.getPercentile(90, TimeUnit.MICROSECONDS)),
+                format(histogram.getPercentile(99, TimeUnit.MICROSECONDS)),
+                histogram.getMax(TimeUnit.MICROSECONDS),
+                ALLOCATION_BEAN != null ? allocatedPerIteration + " bytes/op" : "n/a");
+
+        final List<String> failures = new ArrayList<>();
+        final String unitName = unit.name().toLowerCase(Locale.ROOT);
+        if (perfTest.maxMean() >= 0) {
+            final double mean = histogram.getMean(unit);
+            if (mean > perfTest.maxMean()) {
+                failures.add("mean " + format(mean) + " " + unitName + " exceeds " + perfTest.maxMean() + " "
+                        + unitName);
+            }
+        }
+        if (perfTest.maxPercentile() >= 0) {
+            final double value = histogram.getPercentile(perfTest.percentile(), unit);
+            if (value > perfTest.maxPercentile()) {
+                failures.add("p" + LatencyHistogram.formatPercentile(perfTest.percentile()) + " " + format(value) + " "
+                        + unitName + " exceeds " + perfTest.maxPercentile() + " " + unitName);
+            }
+        }
+        if (perfTest.maxAllocatedBytes() >= 0 && ALLOCATION_BEAN != null) {
+            if (allocatedPerIteration > perfTest.maxAllocatedBytes()) {
+                failures.add("allocated " + allocatedPerIteration + " bytes/op exceeds "
+                        + perfTest.maxAllocatedBytes() + " bytes/op");
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new AssertionError(method.getName() + ": " + String.join(", ", failures));
+        }
+    }
+
+    private String format(final double value) {
+        return String.format(Locale.ROOT, "%.1f", Double.valueOf(value));
+    }
+}
@@ -17,26 +17,103 @@
 
 package com.arakelian.spring.test.rule;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.rules.TestRule;
 import org.junit.runner.Description;
+import org.junit.runners.model.MultipleFailureException;
 import org.junit.runners.model.Statement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.test.context.TestContextManager;
 import org.springframework.test.context.junit4.rules.SpringMethodRule;
 import org.springframework.test.context.junit4.statements.ProfileValueChecker;
-import org.springframework.test.context.junit4.statements.RunAfterTestClassCallbacks;
-import org.springframework.test.context.junit4.statements.RunBeforeTestClassCallbacks;
-import org.springframework.util.Assert;
+
+import com.arakelian.spring.test.context.HeapAwareContextEvictor;
+import com.arakelian.spring.test.jfr.TestEvent;
+import com.arakelian.spring.test.jfr.TestEventPhase;
+import com.arakelian.spring.test.jfr.TestEvents;
+import com.arakelian.spring.test.logging.TestLogBuffer;
+import com.arakelian.spring.test.perf.TestTimings;
+import com.arakelian.spring.test.perf.TimingPhase;
 
 /**
  * Forked from {@link SpringMethodRule} to remove validation code that prevents usage of
  * {@link SpringClassRule} and {@link SpringMethodRule} wihtin ordered rule chains.
  */
 public class SpringClassRule implements TestRule {
+    /**
+     * Equivalent to Spring's <code>RunAfterTestClassCallbacks</code>, but records the callbacks
+     * with {@link TestEvents}.
+     */
+    private static class RunAfterTestClassCallbacks extends Statement {
+        private final Statement next;
+        private final Class<?> testClass;
+        private final TestContextManager testContextManager;
+
+        RunAfterTestClassCallbacks(
+                final Statement next,
+                final Class<?> testClass,
+                final TestContextManager testContextManager) {
+            this.next = next;
+            this.testClass = testClass;
+            this.testContextManager = testContextManager;
+        }
+
+        @Override
+        public void evaluate() throws Throwable {
+            final List<Throwable> errors = new ArrayList<>();
+            try {
+                next.evaluate();
+            } catch (final Throwable t) {
+                errors.add(t);
+            }
+
+            final TestEvent event = TestEvents.begin(TestEventPhase.AFTER_CLASS, testClass, null);
+            try {
+                testContextManager.afterTestClass();
+            } catch (final Throwable t) {
+                errors.add(t);
+            } finally {
+                event.finish();
+            }
+            MultipleFailureException.assertEmpty(errors);
+        }
+    }
+
+    /**
+     * Equivalent to Spring's <code>RunBeforeTestClassCallbacks</code>, but records the time
+     * taken by the callbacks with {@link TestTimings} and {@link TestEvents}.
+     */
+    private static class RunBeforeTestClassCallbacks extends Statement {
+        private final Statement next;
+        private final Class<?> testClass;
+        private final TestContextManager testContextManager;
+
+        RunBeforeTestClassCallbacks(
+                final Statement next,
+                final Class<?> testClass,
+                final TestContextManager testContextManager) {
+            this.next = next;
+            this.testClass = testClass;
+            this.testContextManager = testContextManager;
+        }
+
+        @Override
+        public void evaluate() throws Throwable {
+            final TestEvent event = TestEvents.begin(TestEventPhase.BEFORE_CLASS, testClass, null);
+            final long start = System.nanoTime();
+            try {
+                testContextManager.beforeTestClass();
+            } finally {
+                TestTimings.record(testClass, TimingPhase.BEFORE_CLASS, System.nanoTime() - start);
+                event.finish();
+            }
+            next.evaluate();
+        }
+    }
+
     private static class TestContextManagerCacheEvictor extends Statement {
         private final Statement next;
         private final Class<?> testClass;
@@ -52,24 +129,27 @@ public class SpringClassRule implements TestRule {
                 next.evaluate();
             } finally {
                 CACHE.remove(testClass);
+                HeapAwareContextEvictor.getDefault().release(testClass);
             }
         }
     }
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SpringClassRule.class);
 
-    private static final Map<Class<?>, TestContextManager> CACHE = new ConcurrentHashMap<>();
+    private static final TestContextManagerCache CACHE = TestContextManagerCache.newCache();
+
+    /**
+     * Returns statistics for the cache of {@link TestContextManager} instances shared by
+     * {@link SpringClassRule} and {@link SpringMethodRule}.
+     *
+     * @return statistics for the cache of {@link TestContextManager} instances
+     */
+    public static TestContextManagerCacheStats getTestContextManagerCacheStats() {
+        return CACHE.getStats();
+    }
 
     static TestContextManager getTestContextManager(final Class<?> testClass) {
-        Assert.notNull(testClass, "testClass must not be null");
-        synchronized (CACHE) {
-            TestContextManager testContextManager = CACHE.get(testClass);
-            if (testContextManager == null) {
-                testContextManager = new TestContextManager(testClass);
-                CACHE.put(testClass, testContextManager);
-            }
-            return testContextManager;
-        }
+        return CACHE.get(testClass);
     }
 
     @Override
@@ -79,10 +159,17 @@ public class SpringClassRule implements TestRule {
 
         final TestContextManager testContextManager = getTestContextManager(testClass);
         Statement statement = base;
-        statement = new RunBeforeTestClassCallbacks(statement, testContextManager);
-        statement = new RunAfterTestClassCallbacks(statement, testContextManager);
+        statement = new LoadApplicationContext(statement, testClass, testContextManager);
+        statement = new RunBeforeTestClassCallbacks(statement, testClass, testContextManager);
+        statement = new RunAfterTestClassCallbacks(statement, testClass, testContextManager);
+        statement = new AwaitContextPrewarm(statement, testClass);
         statement = new ProfileValueChecker(statement, testClass, null);
         statement = new TestContextManagerCacheEvictor(statement, testClass);
+        if (TestLogBuffer.isEnabled() && !ParallelMethodsScheduler.isParallel(testClass)) {
+            // covers context loading and class callbacks; test methods flush their own events
+            statement = new BufferTestLogs(statement, "test class " + testClass.getName());
+        }
+        statement = new RecordTiming(statement, testClass, TimingPhase.CLASS);
         return statement;
     }
 }
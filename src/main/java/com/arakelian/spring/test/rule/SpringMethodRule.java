@@ -17,24 +17,156 @@
 
 package com.arakelian.spring.test.rule;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.rules.MethodRule;
 import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.MultipleFailureException;
 import org.junit.runners.model.Statement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.test.annotation.Repeat;
+import org.springframework.test.annotation.Timed;
 import org.springframework.test.context.TestContextManager;
 import org.springframework.test.context.junit4.statements.ProfileValueChecker;
-import org.springframework.test.context.junit4.statements.RunAfterTestMethodCallbacks;
-import org.springframework.test.context.junit4.statements.RunBeforeTestMethodCallbacks;
-import org.springframework.test.context.junit4.statements.RunPrepareTestInstanceCallbacks;
 import org.springframework.test.context.junit4.statements.SpringFailOnTimeout;
 import org.springframework.test.context.junit4.statements.SpringRepeat;
 
+import com.arakelian.spring.test.annotation.Concurrent;
+import com.arakelian.spring.test.annotation.PerfTest;
+import com.arakelian.spring.test.jfr.TestEvent;
+import com.arakelian.spring.test.jfr.TestEventPhase;
+import com.arakelian.spring.test.jfr.TestEvents;
+import com.arakelian.spring.test.logging.TestLogBuffer;
+import com.arakelian.spring.test.perf.TestTimings;
+import com.arakelian.spring.test.perf.TimingPhase;
+
 /**
  * Forked from {@link SpringMethodRule} to remove validation code that prevents usage of
  * {@link SpringClassRule} and {@link SpringMethodRule} wihtin ordered rule chains.
  */
 public class SpringMethodRule implements MethodRule {
+    /**
+     * Equivalent to Spring's <code>RunAfterTestMethodCallbacks</code>, but records the callbacks
+     * with {@link TestEvents}.
+     */
+    private static class RunAfterTestMethodCallbacks extends Statement {
+        private final Statement next;
+        private final Object testInstance;
+        private final Method testMethod;
+        private final TestContextManager testContextManager;
+
+        RunAfterTestMethodCallbacks(
+                final Statement next,
+                final Object testInstance,
+                final Method testMethod,
+                final TestContextManager testContextManager) {
+            this.next = next;
+            this.testInstance = testInstance;
+            this.testMethod = testMethod;
+            this.testContextManager = testContextManager;
+        }
+
+        @Override
+        public void evaluate() throws Throwable {
+            Throwable testException = null;
+            final List<Throwable> errors = new ArrayList<>();
+            try {
+                next.evaluate();
+            } catch (final Throwable t) {
+                testException = t;
+                errors.add(t);
+            }
+
+            final TestEvent event = TestEvents
+                    .begin(TestEventPhase.AFTER_METHOD, testInstance.getClass(), testMethod.getName());
+            try {
+                testContextManager.afterTestMethod(testInstance, testMethod, testException);
+            } catch (final Throwable t) {
+                errors.add(t);
+            } finally {
+                event.finish();
+            }
+            MultipleFailureException.assertEmpty(errors);
+        }
+    }
+
+    /**
+     * Equivalent to Spring's <code>RunBeforeTestMethodCallbacks</code>, but records the callbacks
+     * with {@link TestEvents}.
+     */
+    private static class RunBeforeTestMethodCallbacks extends Statement {
+        private final Statement next;
+        private final Object testInstance;
+        private final Method testMethod;
+        private final TestContextManager testContextManager;
+
+        RunBeforeTestMethodCallbacks(
+                final Statement next,
+                final Object testInstance,
+                final Method testMethod,
+                final TestContextManager testContextManager) {
+            this.next = next;
+            this.testInstance = testInstance;
+            this.testMethod = testMethod;
+            this.testContextManager = testContextManager;
+        }
+
+        @Override
+        public void evaluate() throws Throwable {
+            final TestEvent event = TestEvents
+                    .begin(TestEventPhase.BEFORE_METHOD, testInstance.getClass(), testMethod.getName());
+            try {
+                testContextManager.beforeTestMethod(testInstance, testMethod);
+            } finally {
+                event.finish();
+            }
+            next.evaluate();
+        }
+    }
+
+    /**
+     * Equivalent to Spring's <code>RunPrepareTestInstanceCallbacks</code>, but records the time
+     * taken by the callbacks with {@link TestTimings} and {@link TestEvents}.
+     */
+    private static class RunPrepareTestInstanceCallbacks extends Statement {
+        private final Statement next;
+        private final Object testInstance;
+        private final Method testMethod;
+        private final TestContextManager testContextManager;
+
+        RunPrepareTestInstanceCallbacks(
+                final Statement next,
+                final Object testInstance,
+                final Method testMethod,
+                final TestContextManager testContextManager) {
+            this.next = next;
+            this.testInstance = testInstance;
+            this.testMethod = testMethod;
+            this.testContextManager = testContextManager;
+        }
+
+        @Override
+        public void evaluate() throws Throwable {
+            final TestEvent event = TestEvents
+                    .begin(TestEventPhase.PREPARE_INSTANCE, testInstance.getClass(), testMethod.getName());
+            final long start = System.nanoTime();
+            try {
+                testContextManager.prepareTestInstance(testInstance);
+            } finally {
+                TestTimings.record(
+                        testInstance.getClass(),
+                        TimingPhase.PREPARE_INSTANCE,
+                        System.nanoTime() - start);
+                event.finish();
+            }
+            next.evaluate();
+        }
+    }
+
     private static final Logger LOGGER = LoggerFactory.getLogger(SpringMethodRule.class);
 
     @Override
@@ -44,17 +176,41 @@ public class SpringMethodRule implements MethodRule {
             final Object testInstance) {
         LOGGER.debug("Applying SpringMethodRule to test method [{}]", frameworkMethod.getMethod());
         final Class<?> testClass = testInstance.getClass();
-        final TestContextManager testContextManager = SpringClassRule.getTestContextManager(testClass);
+        final TestContextManager workerContextManager = ParallelMethodsScheduler.getTestContextManager(testClass);
+        final TestContextManager testContextManager = workerContextManager != null ? workerContextManager
+                : SpringClassRule.getTestContextManager(testClass);
 
         Statement statement = base;
+        final PerfTest perfTest = frameworkMethod.getAnnotation(PerfTest.class);
+        if (perfTest != null) {
+            statement = new RunPerfTest(statement, frameworkMethod, perfTest);
+        }
+        final Concurrent concurrent = frameworkMethod.getAnnotation(Concurrent.class);
+        if (concurrent != null) {
+            statement = new RunConcurrent(statement, frameworkMethod, concurrent);
+        }
+        statement = new RecordTiming(statement, testClass, TimingPhase.METHOD);
         statement = new RunBeforeTestMethodCallbacks(statement, testInstance, frameworkMethod.getMethod(),
                 testContextManager);
         statement = new RunAfterTestMethodCallbacks(statement, testInstance, frameworkMethod.getMethod(),
                 testContextManager);
-        statement = new RunPrepareTestInstanceCallbacks(statement, testInstance, testContextManager);
-        statement = new SpringRepeat(statement, frameworkMethod.getMethod());
-        statement = new SpringFailOnTimeout(statement, frameworkMethod.getMethod());
+        statement = new RunPrepareTestInstanceCallbacks(statement, testInstance, frameworkMethod.getMethod(),
+                testContextManager);
+        final Method method = frameworkMethod.getMethod();
+        statement = new SpringRepeat(statement, method);
+        if (AnnotatedElementUtils.hasAnnotation(method, Repeat.class)) {
+            statement = new RecordTestEvent(statement, TestEventPhase.REPEAT, testClass, method.getName());
+        }
+        statement = new SpringFailOnTimeout(statement, method);
+        if (AnnotatedElementUtils.hasAnnotation(method, Timed.class)) {
+            statement = new RecordTestEvent(statement, TestEventPhase.TIMEOUT, testClass, method.getName());
+        }
         statement = new ProfileValueChecker(statement, testInstance.getClass(), frameworkMethod.getMethod());
+        if (TestLogBuffer.isEnabled() && workerContextManager == null) {
+            // the buffer is shared by all threads, so it cannot tell parallel methods apart
+            statement = new BufferTestLogs(statement,
+                    "test " + testClass.getName() + "#" + frameworkMethod.getName());
+        }
         return statement;
     }
 }
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.rule;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.context.TestContextManager;
+import org.springframework.util.Assert;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Cache of {@link TestContextManager} instances, keyed by test class.
+ *
+ * <p>
+ * Entries are never evicted because of the size of the cache, since a class that is still running
+ * must keep the manager that ran its before class callbacks; they are removed with
+ * {@link #remove(Class)} when the class finishes. The cache is therefore not bounded: a warning is
+ * logged once when it grows beyond the size set by the {@value #WARNING_SIZE_PROPERTY} system
+ * property, which usually means that classes are not being removed.
+ * </p>
+ *
+ * <p>
+ * Lookups of an existing entry do not take a lock, so rules that run concurrently on different
+ * threads do not contend with each other. When two threads ask for the same class at the same
+ * time, only one {@link TestContextManager} is built and the other thread waits for it.
+ * </p>
+ */
+public final class TestContextManagerCache {
+    /** System property that can be used to override the size above which a warning is logged **/
+    public static final String WARNING_SIZE_PROPERTY = "spring.test.contextManagerCache.warningSize";
+
+    /**
+     * Former name of {@link #WARNING_SIZE_PROPERTY}, still read if that property is not set.
+     *
+     * @deprecated the cache is not bounded, and this property only ever sets the size above which
+     *             a warning is logged; use {@link #WARNING_SIZE_PROPERTY}
+     */
+    @Deprecated
+    public static final String MAXIMUM_SIZE_PROPERTY = "spring.test.contextManagerCache.maxSize";
+
+    /** Default size above which a warning is logged **/
+    public static final int DEFAULT_WARNING_SIZE = 256;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestContextManagerCache.class);
+
+    public static TestContextManagerCache newCache() {
+        final Integer warningSize = Integer.getInteger(WARNING_SIZE_PROPERTY);
+        if (warningSize != null) {
+            return new TestContextManagerCache(warningSize.intValue());
+        }
+        final Integer deprecated = Integer.getInteger(MAXIMUM_SIZE_PROPERTY);
+        if (deprecated != null) {
+            LOGGER.warn("{} is deprecated and does not bound the cache; use {}", MAXIMUM_SIZE_PROPERTY,
+                    WARNING_SIZE_PROPERTY);
+            return new TestContextManagerCache(deprecated.intValue());
+        }
+        return new TestContextManagerCache(DEFAULT_WARNING_SIZE);
+    }
+
+    /** Size above which a warning is logged; not a bound **/
+    private final int warningSize;
+
+    private final LoadingCache<Class<?>, TestContextManager> cache;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder waitNanos = new LongAdder();
+
+    /** True once the size warning has been logged **/
+    private final AtomicBoolean warned = new AtomicBoolean();
+
+    public TestContextManagerCache(final int warningSize) {
+        Assert.isTrue(warningSize > 0, "warningSize must be positive");
+        this.warningSize = warningSize;
+        this.cache = CacheBuilder.newBuilder() //
+                .build(new CacheLoader<Class<?>, TestContextManager>() {
+                    @Override
+                    public TestContextManager load(final Class<?> testClass) {
+                        return new TestContextManager(testClass);
+                    }
+                });
+    }
+
+    /**
+     * Returns the {@link TestContextManager} for the given test class, creating it if necessary.
+     *
+     * @param testClass
+     *            test class
+     * @return test context manager for the given test class
+     */
+    public TestContextManager get(final Class<?> testClass) {
+        Assert.notNull(testClass, "testClass must not be null");
+
+        // fast path, no locking
+        final TestContextManager existing = cache.getIfPresent(testClass);
+        if (existing != null) {
+            hits.increment();
+            return existing;
+        }
+
+        // slow path, only one thread will build the TestContextManager for a given class
+        misses.increment();
+        final long start = System.nanoTime();
+        try {
+            final TestContextManager manager = cache.getUnchecked(testClass);
+            if (cache.size() > warningSize && warned.compareAndSet(false, true)) {
+                LOGGER.warn(
+                        "TestContextManager cache holds more than {} test classes; they should be removed when each "
+                                + "class finishes",
+                        warningSize);
+            }
+            return manager;
+        } catch (final UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
+        } finally {
+            waitNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    public int getWarningSize() {
+        return warningSize;
+    }
+
+    /**
+     * Returns a snapshot of the cache statistics.
+     *
+     * @return snapshot of the cache statistics
+     */
+    public TestContextManagerCacheStats getStats() {
+        return new TestContextManagerCacheStats(cache.size(), hits.sum(), misses.sum(), evictions.sum(),
+                waitNanos.sum());
+    }
+
+    public void remove(final Class<?> testClass) {
+        if (cache.asMap().remove(testClass) != null) {
+            evictions.increment();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.rule;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-in-time statistics for a {@link TestContextManagerCache}.
+ */
+public final class TestContextManagerCacheStats {
+    private final long size;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long waitNanos;
+
+    TestContextManagerCacheStats(
+            final long size,
+            final long hitCount,
+            final long missCount,
+            final long evictionCount,
+            final long waitNanos) {
+        this.size = size;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.waitNanos = waitNanos;
+    }
+
+    /**
+     * Returns the number of entries removed because their test class finished.
+     *
+     * @return number of entries removed because their test class finished
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the total time that callers spent waiting on cache misses, either building a
+     * {@link org.springframework.test.context.TestContextManager} or waiting for another thread to
+     * finish building it.
+     *
+     * @param unit
+     *            time unit
+     * @return total wait time in the given unit
+     */
+    public long getWaitTime(final TimeUnit unit) {
+        return unit.convert(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("TestContextManagerCacheStats [");
+        builder.append("size=").append(size);
+        builder.append(", hitCount=").append(hitCount);
+        builder.append(", missCount=").append(missCount);
+        builder.append(", evictionCount=").append(evictionCount);
+        builder.append(", waitMillis=").append(TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        builder.append("]");
+        return builder.toString();
+    }
+}
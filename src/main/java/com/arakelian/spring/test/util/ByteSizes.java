@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.util;
+
+import java.util.Locale;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Parses and formats byte sizes used by memory budgets, such as <code>512m</code> or
+ * <code>2g</code>.
+ */
+public final class ByteSizes {
+    private static final long MB = 1024L * 1024L;
+
+    /**
+     * Returns a human readable byte size, in KB or MB.
+     *
+     * @param bytes
+     *            number of bytes
+     * @return human readable byte size
+     */
+    public static String format(final long bytes) {
+        return bytes >= MB ? bytes / MB + " MB" : bytes / 1024 + " KB";
+    }
+
+    /**
+     * Returns the byte size set by a system property, which may use a <code>k</code>,
+     * <code>m</code> or <code>g</code> suffix.
+     *
+     * @param property
+     *            system property name
+     * @param defaultValue
+     *            value returned if the property is not set
+     * @return byte size
+     * @throws IllegalArgumentException
+     *             if the property value is not a valid byte size
+     */
+    public static long getBytes(final String property, final long defaultValue) {
+        final String value = System.getProperty(property);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return parse(value);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + property + ": " + value, e);
+        }
+    }
+
+    /**
+     * Parses a byte size, which may use a <code>k</code>, <code>m</code> or <code>g</code> suffix.
+     *
+     * @param value
+     *            byte size
+     * @return number of bytes
+     * @throws NumberFormatException
+     *             if the value is not a valid byte size
+     */
+    public static long parse(final String value) {
+        final String trimmed = value.trim().toLowerCase(Locale.ROOT);
+        if (trimmed.isEmpty()) {
+            throw new NumberFormatException("Empty byte size");
+        }
+        final char unit = trimmed.charAt(trimmed.length() - 1);
+        final int shift = unit == 'k' ? 10 : unit == 'm' ? 20 : unit == 'g' ? 30 : 0;
+        final String number = shift != 0 ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+        return Long.parseLong(number.trim()) << shift;
+    }
+
+    private ByteSizes() {
+        // utility class
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.web;
+
+/**
+ * Point-in-time statistics for a {@link PooledHttpClient}.
+ */
+public final class HttpConnectionPoolStats {
+    private final long requestCount;
+    private final long connectionsOpened;
+    private final int leased;
+    private final int available;
+    private final int max;
+
+    HttpConnectionPoolStats(
+            final long requestCount,
+            final long connectionsOpened,
+            final int leased,
+            final int available,
+            final int max) {
+        this.requestCount = requestCount;
+        this.connectionsOpened = connectionsOpened;
+        this.leased = leased;
+        this.available = available;
+        this.max = max;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+
+    public long getConnectionsOpened() {
+        return connectionsOpened;
+    }
+
+    /**
+     * Returns the number of requests that reused a pooled connection.
+     *
+     * @return number of requests that reused a pooled connection
+     */
+    public long getHitCount() {
+        return Math.max(0, requestCount - connectionsOpened);
+    }
+
+    public int getLeased() {
+        return leased;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the number of requests that had to open a new connection.
+     *
+     * @return number of requests that had to open a new connection
+     */
+    public long getMissCount() {
+        return connectionsOpened;
+    }
+
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("HttpConnectionPoolStats [");
+        builder.append("requestCount=").append(requestCount);
+        builder.append(", hitCount=").append(getHitCount());
+        builder.append(", missCount=").append(getMissCount());
+        builder.append(", leased=").append(leased);
+        builder.append(", available=").append(available);
+        builder.append(", max=").append(max);
+        builder.append("]");
+        return builder.toString();
+    }
+}
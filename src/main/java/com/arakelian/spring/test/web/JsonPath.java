@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.web;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compiled JSON path, limited to the subset that can be evaluated in a single pass over a
+ * stream: <code>$</code> followed by any number of <code>.name</code>, <code>['name']</code>,
+ * <code>[index]</code>, <code>.*</code> and <code>[*]</code> segments. Filters, slices and
+ * recursive descent are not supported.
+ */
+final class JsonPath {
+    /** One step of a path **/
+    static final class Segment {
+        /** Field name, or null for array indexes and wildcards **/
+        final String name;
+
+        /** Array index, or -1 for field names and wildcards **/
+        final int index;
+
+        private Segment(final String name, final int index) {
+            this.name = name;
+            this.index = index;
+        }
+
+        boolean isWildcard() {
+            return name == null && index == -1;
+        }
+    }
+
+    /**
+     * Compiles the given path.
+     *
+     * @param path
+     *            JSON path, e.g. <code>$.items[*].id</code>
+     * @return compiled path
+     * @throws IllegalArgumentException
+     *             if the path is not supported
+     */
+    static JsonPath compile(final String path) {
+        if (path == null || !path.startsWith("$")) {
+            throw new IllegalArgumentException("JSON path must start with '$': " + path);
+        }
+
+        final List<Segment> segments = new ArrayList<>();
+        int i = 1;
+        final int length = path.length();
+        while (i < length) {
+            final char ch = path.charAt(i);
+            if (ch == '.') {
+                int end = i + 1;
+                while (end < length && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                final String name = path.substring(i + 1, end);
+                if (name.isEmpty()) {
+                    throw new IllegalArgumentException("Unsupported JSON path: " + path);
+                }
+                segments.add("*".equals(name) ? new Segment(null, -1) : new Segment(name, -1));
+                i = end;
+            } else if (ch == '[') {
+                final int end = path.indexOf(']', i);
+                if (end == -1) {
+                    throw new IllegalArgumentException("Unterminated '[' in JSON path: " + path);
+                }
+                segments.add(parseBracket(path, path.substring(i + 1, end).trim()));
+                i = end + 1;
+            } else {
+                throw new IllegalArgumentException("Unsupported JSON path: " + path);
+            }
+        }
+        return new JsonPath(path, segments);
+    }
+
+    private static Segment parseBracket(final String path, final String selector) {
+        if ("*".equals(selector)) {
+            return new Segment(null, -1);
+        }
+        if (selector.length() >= 2 && (selector.charAt(0) == '\'' || selector.charAt(0) == '"')
+                && selector.charAt(selector.length() - 1) == selector.charAt(0)) {
+            return new Segment(selector.substring(1, selector.length() - 1), -1);
+        }
+        try {
+            final int index = Integer.parseInt(selector);
+            if (index >= 0) {
+                return new Segment(null, index);
+            }
+        } catch (final NumberFormatException e) {
+            // fall through
+        }
+        throw new IllegalArgumentException("Unsupported selector [" + selector + "] in JSON path: " + path);
+    }
+
+    private final String path;
+
+    private final List<Segment> segments;
+
+    private JsonPath(final String path, final List<Segment> segments) {
+        this.path = path;
+        this.segments = Collections.unmodifiableList(segments);
+    }
+
+    List<Segment> getSegments() {
+        return segments;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Evaluates {@link JsonPath}s in a single pass over a JSON stream, without building a tree. This is
+ * the only class in this package that refers to Jackson, so that it is only loaded when JSON paths
+ * are used.
+ */
+final class JsonStreamScanner {
+    private static final JsonFactory FACTORY = new JsonFactory() //
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+    /**
+     * Reads JSON values from the given stream until it is exhausted, counting the values that
+     * match each path and keeping the first scalar value matched. A stream of concatenated or
+     * newline-delimited values is read as a sequence of root values.
+     *
+     * @param in
+     *            JSON stream; not closed
+     * @param paths
+     *            paths to evaluate
+     * @param counts
+     *            number of matches of each path, updated in place
+     * @param values
+     *            first scalar value matched by each path, updated in place
+     * @throws IOException
+     *             if the stream cannot be read or is not valid JSON
+     */
+    static void scan(final InputStream in, final List<JsonPath> paths, final long[] counts, final String[] values)
+            throws IOException {
+        final int size = paths.size();
+        try (final JsonParser parser = FACTORY.createParser(in)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.FIELD_NAME || token.isStructEnd()) {
+                    continue;
+                }
+
+                // structures have already entered their own context
+                final JsonStreamContext context = token.isStructStart()
+                        ? parser.getParsingContext().getParent()
+                        : parser.getParsingContext();
+                for (int i = 0; i < size; i++) {
+                    if (matches(paths.get(i), context)) {
+                        counts[i]++;
+                        if (values[i] == null && token.isScalarValue()) {
+                            values[i] = token == JsonToken.VALUE_NULL ? "null" : parser.getText();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean matches(final JsonPath path, final JsonStreamContext context) {
+        final List<JsonPath.Segment> segments = path.getSegments();
+        JsonStreamContext current = context;
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            if (current == null || current.inRoot()) {
+                return false;
+            }
+            final JsonPath.Segment segment = segments.get(i);
+            if (!segment.isWildcard()) {
+                if (current.inArray() ? segment.index != current.getCurrentIndex()
+                        : segment.name == null || !segment.name.equals(current.getCurrentName())) {
+                    return false;
+                }
+            }
+            current = current.getParent();
+        }
+        return current == null || current.inRoot();
+    }
+
+    private JsonStreamScanner() {
+        // utility class
+    }
+}
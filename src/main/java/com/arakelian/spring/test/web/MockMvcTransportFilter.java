@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.web;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import javax.servlet.Filter;
+import javax.servlet.ServletContext;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.Assert;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.http.Cookie;
+import io.restassured.http.Cookies;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * RestAssured filter that dispatches requests in-process through {@link MockMvc} instead of
+ * sending them over a socket. The filter runs last and never passes the request on, so the rest of
+ * RestAssured (request building, logging and response validation) works unchanged. Servlet
+ * {@link Filter} beans of the context are applied to every request, in their declared order.
+ *
+ * <p>
+ * Requires <code>spring-webmvc</code> on the test classpath.
+ * </p>
+ */
+public class MockMvcTransportFilter implements OrderedFilter {
+    /** MockMvc initializes a DispatcherServlet, so we only build one per context **/
+    private static final Cache<ApplicationContext, MockMvc> MOCK_MVC = CacheBuilder.newBuilder() //
+            .weakKeys() //
+            .build();
+
+    public static MockMvcTransportFilter forContext(final ApplicationContext applicationContext) {
+        Assert.isInstanceOf(
+                WebApplicationContext.class,
+                applicationContext,
+                "MOCK_MVC transport requires a WebApplicationContext");
+        final WebApplicationContext context = (WebApplicationContext) applicationContext;
+        try {
+            final MockMvc mockMvc = MOCK_MVC.get(context, new Callable<MockMvc>() {
+                @Override
+                public MockMvc call() {
+                    // like Spring Boot's MockMvc auto-configuration, so that security, CORS and
+                    // encoding filters apply exactly as they do over a socket
+                    final List<Filter> filters = new ArrayList<>(context.getBeansOfType(Filter.class).values());
+                    AnnotationAwareOrderComparator.sort(filters);
+                    return MockMvcBuilders.webAppContextSetup(context) //
+                            .addFilters(filters.toArray(new Filter[filters.size()])) //
+                            .build();
+                }
+            });
+            return new MockMvcTransportFilter(mockMvc, context.getServletContext());
+        } catch (final ExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException("Unable to create MockMvc", e.getCause());
+        }
+    }
+
+    private static Response toResponse(final MockHttpServletResponse response) {
+        final List<Header> headers = new ArrayList<>();
+        for (final String name : response.getHeaderNames()) {
+            for (final String value : response.getHeaders(name)) {
+                headers.add(new Header(name, value));
+            }
+        }
+
+        final List<Cookie> cookies = new ArrayList<>();
+        for (final javax.servlet.http.Cookie cookie : response.getCookies()) {
+            cookies.add(new Cookie.Builder(cookie.getName(), cookie.getValue()).build());
+        }
+
+        final int status = response.getStatus();
+        final ResponseBuilder builder = new ResponseBuilder() //
+                .setStatusCode(status) //
+                .setStatusLine("HTTP/1.1 " + status + getReasonPhrase(status)) //
+                .setHeaders(new Headers(headers)) //
+                .setCookies(new Cookies(cookies)) //
+                .setBody(response.getContentAsByteArray());
+        if (response.getContentType() != null) {
+            builder.setContentType(response.getContentType());
+        }
+        return builder.build();
+    }
+
+    private static String getReasonPhrase(final int status) {
+        for (final HttpStatus httpStatus : HttpStatus.values()) {
+            if (httpStatus.value() == status) {
+                return " " + httpStatus.getReasonPhrase();
+            }
+        }
+        return "";
+    }
+
+    private static String[] toStrings(final Object value) {
+        if (value instanceof Collection) {
+            final Collection<?> values = (Collection<?>) value;
+            final String[] strings = new String[values.size()];
+            int i = 0;
+            for (final Object each : values) {
+                strings[i++] = String.valueOf(each);
+            }
+            return strings;
+        }
+        return new String[] { String.valueOf(value) };
+    }
+
+    private final MockMvc mockMvc;
+
+    private final String contextPath;
+
+    public MockMvcTransportFilter(final MockMvc mockMvc, final ServletContext servletContext) {
+        this.mockMvc = mockMvc;
+        this.contextPath = servletContext != null ? servletContext.getContextPath() : "";
+    }
+
+    @Override
+    public Response filter(
+            final FilterableRequestSpecification requestSpec,
+            final FilterableResponseSpecification responseSpec,
+            final FilterContext ctx) {
+        Assert.state(
+                requestSpec.getMultiPartParams().isEmpty(),
+                "Multi-part requests are not supported by the MOCK_MVC transport");
+
+        final URI uri = URI.create(requestSpec.getURI());
+        final MockHttpServletRequestBuilder builder = MockMvcRequestBuilders
+                .request(HttpMethod.valueOf(requestSpec.getMethod()), uri);
+        if (!contextPath.isEmpty() && uri.getPath().startsWith(contextPath)) {
+            builder.contextPath(contextPath);
+        }
+
+        for (final Header header : requestSpec.getHeaders()) {
+            builder.header(header.getName(), header.getValue());
+        }
+        if (requestSpec.getContentType() != null) {
+            builder.contentType(requestSpec.getContentType());
+        }
+        for (final Cookie cookie : requestSpec.getCookies()) {
+            builder.cookie(new javax.servlet.http.Cookie(cookie.getName(), cookie.getValue()));
+        }
+        // values of multi-valued parameters are collections, despite the declared type
+        final Map<String, ?> formParams = requestSpec.getFormParams();
+        for (final Map.Entry<String, ?> param : formParams.entrySet()) {
+            builder.param(param.getKey(), toStrings(param.getValue()));
+        }
+
+        final Object body = requestSpec.getBody();
+        if (body instanceof byte[]) {
+            builder.content((byte[]) body);
+        } else if (body != null) {
+            builder.content(body.toString());
+        }
+
+        try {
+            MvcResult result = mockMvc.perform(builder).andReturn();
+            if (result.getRequest().isAsyncStarted()) {
+                result = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result)).andReturn();
+            }
+            return toResponse(result.getResponse());
+        } catch (final Exception e) {
+            Throwables.throwIfUnchecked(e);
+            throw new IllegalStateException("Unable to dispatch " + requestSpec.getMethod() + " " + uri, e);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // must be the last filter, since we do not call ctx.next()
+        return LOWEST_PRECEDENCE;
+    }
+}
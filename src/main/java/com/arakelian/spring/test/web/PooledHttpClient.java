@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.web;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.HttpClient;
+import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import io.restassured.config.HttpClientConfig;
+
+/**
+ * Shared, pooled keep-alive HTTP client for the embedded server listening on a given port.
+ *
+ * <p>
+ * RestAssured 3 requires an Apache {@link org.apache.http.impl.client.AbstractHttpClient}, so this
+ * class uses the (deprecated) {@link org.apache.http.impl.conn.PoolingClientConnectionManager};
+ * deprecated classes are referenced by their fully qualified names, since Java 8 warns about
+ * deprecated imports even when they are suppressed. The pool size is set with the
+ * {@value #MAX_CONNECTIONS_PROPERTY} system property (default {@value #DEFAULT_MAX_CONNECTIONS}).
+ * </p>
+ */
+@SuppressWarnings("deprecation")
+public final class PooledHttpClient {
+    /** Counts connections that had to be opened because none was available in the pool **/
+    private final class CountingConnectionOperator extends org.apache.http.impl.conn.DefaultClientConnectionOperator {
+        private CountingConnectionOperator(final org.apache.http.conn.scheme.SchemeRegistry schemes) {
+            super(schemes);
+        }
+
+        @Override
+        public void openConnection(
+                final org.apache.http.conn.OperatedClientConnection conn,
+                final HttpHost target,
+                final InetAddress local,
+                final HttpContext context,
+                final org.apache.http.params.HttpParams params) throws IOException {
+            connectionsOpened.increment();
+            super.openConnection(conn, target, local, context, params);
+        }
+    }
+
+    private final class CountingConnectionManager extends org.apache.http.impl.conn.PoolingClientConnectionManager {
+        private CountingConnectionManager() {
+            super(org.apache.http.impl.conn.SchemeRegistryFactory.createDefault());
+        }
+
+        @Override
+        protected org.apache.http.conn.ClientConnectionOperator createConnectionOperator(
+                final org.apache.http.conn.scheme.SchemeRegistry schemes) {
+            return new CountingConnectionOperator(schemes);
+        }
+    }
+
+    /** System property that sets the maximum number of pooled connections **/
+    public static final String MAX_CONNECTIONS_PROPERTY = "spring.test.http.maxConnections";
+
+    /** Default maximum number of pooled connections **/
+    public static final int DEFAULT_MAX_CONNECTIONS = 20;
+
+    /** Request context attribute that prevents the response from being buffered **/
+    static final String STREAMING_ATTRIBUTE = PooledHttpClient.class.getName() + ".streaming";
+
+    private static final Map<Integer, PooledHttpClient> CLIENTS = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the shared client for the server listening on the given port.
+     *
+     * @param port
+     *            server port
+     * @return shared client for the given port
+     */
+    public static PooledHttpClient forPort(final int port) {
+        final Integer key = Integer.valueOf(port);
+        PooledHttpClient client = CLIENTS.get(key);
+        if (client == null) {
+            final PooledHttpClient created = new PooledHttpClient(
+                    Integer.getInteger(MAX_CONNECTIONS_PROPERTY, DEFAULT_MAX_CONNECTIONS));
+            client = CLIENTS.putIfAbsent(key, created);
+            if (client == null) {
+                client = created;
+            } else {
+                created.connectionManager.shutdown();
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Shuts down the shared client for the given port, if there is one, and closes its pooled
+     * connections. A later call to {@link #forPort(int)} creates a new client.
+     *
+     * @param port
+     *            server port
+     */
+    public static void shutdown(final int port) {
+        final PooledHttpClient client = CLIENTS.remove(Integer.valueOf(port));
+        if (client != null) {
+            client.connectionManager.shutdown();
+        }
+    }
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder connectionsOpened = new LongAdder();
+
+    private final org.apache.http.impl.conn.PoolingClientConnectionManager connectionManager;
+
+    private final org.apache.http.impl.client.DefaultHttpClient httpClient;
+
+    private PooledHttpClient(final int maxConnections) {
+        connectionManager = new CountingConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+        httpClient = new org.apache.http.impl.client.DefaultHttpClient(connectionManager);
+        httpClient.addRequestInterceptor(new HttpRequestInterceptor() {
+            @Override
+            public void process(final HttpRequest request, final HttpContext context) {
+                requests.increment();
+            }
+        });
+
+        // RestAssured does not always read the response to the end, which would leave the
+        // connection leased; buffering the response lets the connection go back to the pool
+        httpClient.addResponseInterceptor(new HttpResponseInterceptor() {
+            @Override
+            public void process(final HttpResponse response, final HttpContext context) throws IOException {
+                final HttpEntity entity = response.getEntity();
+                if (entity != null && entity.isStreaming() && context.getAttribute(STREAMING_ATTRIBUTE) == null) {
+                    response.setEntity(new BufferedHttpEntity(entity));
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns RestAssured client configuration that always uses this pooled client.
+     *
+     * @return RestAssured client configuration
+     */
+    public HttpClientConfig getHttpClientConfig() {
+        return configure(HttpClientConfig.httpClientConfig());
+    }
+
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Returns the given RestAssured client configuration, changed to always use this pooled
+     * client.
+     *
+     * @param config
+     *            RestAssured client configuration, whose other settings are kept
+     * @return RestAssured client configuration
+     */
+    public HttpClientConfig configure(final HttpClientConfig config) {
+        return config //
+                .reuseHttpClientInstance() //
+                .httpClientFactory(new HttpClientConfig.HttpClientFactory() {
+                    @Override
+                    public HttpClient createHttpClient() {
+                        return httpClient;
+                    }
+                });
+    }
+
+    /**
+     * Returns a request whose response body is validated as it is read, rather than buffered in
+     * memory.
+     *
+     * @param url
+     *            request URL
+     * @return new streaming request
+     */
+    public StreamingRequest newStreamingRequest(final String url) {
+        return new StreamingRequest(httpClient, url);
+    }
+
+    /**
+     * Returns a snapshot of the pool statistics.
+     *
+     * @return snapshot of the pool statistics
+     */
+    public HttpConnectionPoolStats getStats() {
+        final PoolStats stats = connectionManager.getTotalStats();
+        return new HttpConnectionPoolStats(requests.sum(), connectionsOpened.sum(), stats.getLeased(),
+                stats.getAvailable(), stats.getMax());
+    }
+}
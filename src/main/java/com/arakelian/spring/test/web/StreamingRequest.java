@@ -0,0 +1,290 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.web;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+/**
+ * Request whose response body is validated while it is read, so that very large responses (for
+ * example exports of hundreds of megabytes) can be tested without holding them in memory, as
+ * RestAssured would.
+ *
+ * <p>
+ * While the body is read, its bytes and lines are counted, an optional checksum is computed, and
+ * JSON paths registered with {@link #evaluateJson(String)} are evaluated with a streaming parser;
+ * see {@link JsonPath} for the supported subset. JSON paths require Jackson.
+ * </p>
+ *
+ * <pre>
+ * newStreamingRequest("/export") //
+ *         .expectStatus(200) //
+ *         .evaluateJson("$.items[*]") //
+ *         .checksum("SHA-256") //
+ *         .get() //
+ *         .assertJsonCount("$.items[*]", 1_000_000);
+ * </pre>
+ */
+public final class StreamingRequest {
+    /** Counts bytes and lines, and updates a digest, as the body is read **/
+    private static final class MeteredInputStream extends FilterInputStream {
+        private final MessageDigest digest;
+        private long bytes;
+        private long lines;
+        private int last = -1;
+
+        private MeteredInputStream(final InputStream in, final MessageDigest digest) {
+            super(in);
+            this.digest = digest;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b != -1) {
+                update(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int n = super.read(b, off, len);
+            for (int i = 0; i < n; i++) {
+                update(b[off + i] & 0xff);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            // skipped bytes must still be counted and digested
+            final byte[] buf = new byte[(int) Math.min(n, BUFFER_SIZE)];
+            final int read = read(buf, 0, buf.length);
+            return Math.max(0, read);
+        }
+
+        private void drain() throws IOException {
+            final byte[] buf = new byte[BUFFER_SIZE];
+            while (read(buf, 0, buf.length) != -1) {
+                // keep reading
+            }
+        }
+
+        private long getLines() {
+            // the last line may not end with a newline
+            return last == -1 || last == '\n' ? lines : lines + 1;
+        }
+
+        private void update(final int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+            last = b;
+            if (digest != null) {
+                digest.update((byte) b);
+            }
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamingRequest.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static String toHex(final byte[] bytes) {
+        final StringBuilder buf = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            buf.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return buf.toString();
+    }
+
+    private final HttpClient httpClient;
+
+    private final String url;
+
+    private final Map<String, String> headers = new LinkedHashMap<>();
+
+    private final List<JsonPath> jsonPaths = new ArrayList<>();
+
+    private int expectedStatus = -1;
+
+    private String checksumAlgorithm;
+
+    StreamingRequest(final HttpClient httpClient, final String url) {
+        this.httpClient = httpClient;
+        this.url = url;
+    }
+
+    /**
+     * Computes a checksum of the response body.
+     *
+     * @param algorithm
+     *            name of a {@link MessageDigest} algorithm, e.g. <code>SHA-256</code> or
+     *            <code>MD5</code>
+     * @return this request
+     * @throws IllegalArgumentException
+     *             if the algorithm is not available
+     */
+    public StreamingRequest checksum(final String algorithm) {
+        newDigest(algorithm);
+        checksumAlgorithm = algorithm;
+        return this;
+    }
+
+    /**
+     * Counts the values matched by a JSON path while the body is read, and keeps the first scalar
+     * value matched. A body of newline-delimited JSON is read as a sequence of values, so
+     * <code>$</code> counts its records.
+     *
+     * @param path
+     *            JSON path, e.g. <code>$.items[*]</code> or <code>$.meta.total</code>
+     * @return this request
+     * @throws IllegalArgumentException
+     *             if the path is not supported
+     */
+    public StreamingRequest evaluateJson(final String path) {
+        jsonPaths.add(JsonPath.compile(path));
+        return this;
+    }
+
+    /**
+     * Fails without reading the body if the response has a different status code.
+     *
+     * @param status
+     *            expected status code
+     * @return this request
+     */
+    public StreamingRequest expectStatus(final int status) {
+        expectedStatus = status;
+        return this;
+    }
+
+    /**
+     * Sends a GET request and reads the response body to the end.
+     *
+     * @return result of reading the response
+     * @throws IOException
+     *             if the request fails, or the body cannot be read or parsed
+     * @throws AssertionError
+     *             if the response does not have the {@link #expectStatus(int) expected status}
+     */
+    public StreamingResult get() throws IOException {
+        final HttpGet request = new HttpGet(url);
+        for (final Map.Entry<String, String> header : headers.entrySet()) {
+            request.addHeader(header.getKey(), header.getValue());
+        }
+
+        final HttpContext context = new BasicHttpContext();
+        context.setAttribute(PooledHttpClient.STREAMING_ATTRIBUTE, Boolean.TRUE);
+        final MessageDigest digest = checksumAlgorithm != null ? newDigest(checksumAlgorithm) : null;
+
+        final long start = System.nanoTime();
+        final HttpResponse response = httpClient.execute(request, context);
+        boolean completed = false;
+        try {
+            final int status = response.getStatusLine().getStatusCode();
+            if (expectedStatus != -1 && status != expectedStatus) {
+                throw new AssertionError("Expected status " + expectedStatus + " but was "
+                        + response.getStatusLine() + " for GET " + url);
+            }
+
+            final int size = jsonPaths.size();
+            final long[] counts = new long[size];
+            final String[] values = new String[size];
+            final HttpEntity entity = response.getEntity();
+            long bytes = 0;
+            long lines = 0;
+            if (entity != null) {
+                try (final MeteredInputStream in = new MeteredInputStream(entity.getContent(), digest)) {
+                    if (size != 0) {
+                        JsonStreamScanner.scan(in, jsonPaths, counts, values);
+                    }
+                    in.drain();
+                    bytes = in.bytes;
+                    lines = in.getLines();
+                }
+            }
+            completed = true;
+
+            final Map<String, Long> jsonCounts = new LinkedHashMap<>();
+            final Map<String, String> jsonValues = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                final String path = jsonPaths.get(i).toString();
+                jsonCounts.put(path, Long.valueOf(counts[i]));
+                jsonValues.put(path, values[i]);
+            }
+            final StreamingResult result = new StreamingResult("GET " + url, status, bytes,
+                    System.nanoTime() - start, lines, digest != null ? toHex(digest.digest()) : null, jsonCounts,
+                    jsonValues);
+            LOGGER.info("{}", result);
+            return result;
+        } finally {
+            if (!completed) {
+                // do not read the rest of a large body just to reuse the connection
+                request.abort();
+            }
+        }
+    }
+
+    /**
+     * Adds a request header.
+     *
+     * @param name
+     *            header name
+     * @param value
+     *            header value
+     * @return this request
+     */
+    public StreamingRequest header(final String name, final String value) {
+        Assert.hasText(name, "name must be non-empty");
+        headers.put(name, value);
+        return this;
+    }
+
+    private MessageDigest newDigest(final String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Unsupported checksum algorithm: " + algorithm, e);
+        }
+    }
+}
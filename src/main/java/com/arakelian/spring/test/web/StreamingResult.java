@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.web;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+
+import com.arakelian.spring.test.util.ByteSizes;
+
+/**
+ * Result of reading a response with a {@link StreamingRequest}: size, throughput, line count,
+ * checksum and JSON path matches.
+ */
+public final class StreamingResult {
+    private final String name;
+
+    private final int status;
+
+    private final long bytes;
+
+    private final long elapsedNanos;
+
+    private final long lines;
+
+    private final String checksum;
+
+    private final Map<String, Long> jsonCounts;
+
+    private final Map<String, String> jsonValues;
+
+    StreamingResult(
+            final String name,
+            final int status,
+            final long bytes,
+            final long elapsedNanos,
+            final long lines,
+            final String checksum,
+            final Map<String, Long> jsonCounts,
+            final Map<String, String> jsonValues) {
+        this.name = name;
+        this.status = status;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+        this.lines = lines;
+        this.checksum = checksum;
+        this.jsonCounts = Collections.unmodifiableMap(jsonCounts);
+        this.jsonValues = Collections.unmodifiableMap(jsonValues);
+    }
+
+    /**
+     * Fails if the body was read more slowly than the given rate.
+     *
+     * @param bytesPerSecond
+     *            minimum throughput
+     * @return this result
+     * @throws AssertionError
+     *             if throughput is below the minimum
+     */
+    public StreamingResult assertBytesPerSecondAtLeast(final double bytesPerSecond) {
+        final double actual = getBytesPerSecond();
+        if (actual < bytesPerSecond) {
+            throw new AssertionError(String.format(
+                    Locale.ROOT,
+                    "%s: throughput %s/s is below %s/s",
+                    name,
+                    ByteSizes.format((long) actual),
+                    ByteSizes.format((long) bytesPerSecond)));
+        }
+        return this;
+    }
+
+    /**
+     * Fails if the checksum of the body differs from the expected one.
+     *
+     * @param expected
+     *            expected checksum, in hexadecimal
+     * @return this result
+     * @throws AssertionError
+     *             if the checksum differs
+     */
+    public StreamingResult assertChecksum(final String expected) {
+        Assert.state(checksum != null, "No checksum was computed; call StreamingRequest.checksum()");
+        if (!checksum.equalsIgnoreCase(expected)) {
+            throw new AssertionError(name + ": expected checksum " + expected + " but was " + checksum);
+        }
+        return this;
+    }
+
+    /**
+     * Fails if a JSON path did not match the expected number of values.
+     *
+     * @param path
+     *            JSON path registered with {@link StreamingRequest#evaluateJson(String)}
+     * @param expected
+     *            expected number of matches
+     * @return this result
+     * @throws AssertionError
+     *             if the number of matches differs
+     */
+    public StreamingResult assertJsonCount(final String path, final long expected) {
+        final long actual = getJsonCount(path);
+        if (actual != expected) {
+            throw new AssertionError(name + ": expected " + expected + " matches of " + path + " but was " + actual);
+        }
+        return this;
+    }
+
+    /**
+     * Fails if the first scalar value matched by a JSON path differs from the expected one.
+     *
+     * @param path
+     *            JSON path registered with {@link StreamingRequest#evaluateJson(String)}
+     * @param expected
+     *            expected value, as text
+     * @return this result
+     * @throws AssertionError
+     *             if the value differs
+     */
+    public StreamingResult assertJsonValue(final String path, final String expected) {
+        final String actual = getJsonValue(path);
+        if (expected == null ? actual != null : !expected.equals(actual)) {
+            throw new AssertionError(name + ": expected " + path + " to be " + expected + " but was " + actual);
+        }
+        return this;
+    }
+
+    /**
+     * Fails if the body does not have the expected number of lines, e.g. CSV rows.
+     *
+     * @param expected
+     *            expected number of lines, including any header line
+     * @return this result
+     * @throws AssertionError
+     *             if the number of lines differs
+     */
+    public StreamingResult assertLineCount(final long expected) {
+        if (lines != expected) {
+            throw new AssertionError(name + ": expected " + expected + " lines but was " + lines);
+        }
+        return this;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of body bytes read per second, measured from sending the request.
+     *
+     * @return bytes per second
+     */
+    public double getBytesPerSecond() {
+        return elapsedNanos != 0 ? bytes * 1e9 / elapsedNanos : 0;
+    }
+
+    /**
+     * Returns the checksum of the body in lowercase hexadecimal, or null if none was requested.
+     *
+     * @return checksum of the body
+     */
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public long getElapsed(final TimeUnit unit) {
+        return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the number of values matched by a JSON path.
+     *
+     * @param path
+     *            JSON path registered with {@link StreamingRequest#evaluateJson(String)}
+     * @return number of matches
+     */
+    public long getJsonCount(final String path) {
+        final Long count = jsonCounts.get(path);
+        Assert.isTrue(count != null, "JSON path was not evaluated: " + path);
+        return count.longValue();
+    }
+
+    /**
+     * Returns the first scalar value matched by a JSON path, as text.
+     *
+     * @param path
+     *            JSON path registered with {@link StreamingRequest#evaluateJson(String)}
+     * @return first scalar value matched, or null if there was none
+     */
+    public String getJsonValue(final String path) {
+        Assert.isTrue(jsonValues.containsKey(path), "JSON path was not evaluated: " + path);
+        return jsonValues.get(path);
+    }
+
+    /**
+     * Returns the number of lines in the body; a last line without a newline is counted.
+     *
+     * @return number of lines
+     */
+    public long getLineCount() {
+        return lines;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buf = new StringBuilder(128);
+        buf.append(name).append(": status ").append(status);
+        buf.append(", ").append(ByteSizes.format(bytes));
+        buf.append(" in ").append(getElapsed(TimeUnit.MILLISECONDS)).append("ms");
+        buf.append(" (").append(ByteSizes.format((long) getBytesPerSecond())).append("/s)");
+        buf.append(", ").append(lines).append(" lines");
+        if (checksum != null) {
+            buf.append(", checksum ").append(checksum);
+        }
+        for (final Map.Entry<String, Long> entry : jsonCounts.entrySet()) {
+            buf.append(", ").append(entry.getKey()).append(" x").append(entry.getValue());
+        }
+        return buf.toString();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.web;
+
+import java.util.Locale;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+
+import com.arakelian.spring.test.annotation.WithTransport;
+
+/**
+ * How {@link com.arakelian.spring.test.AbstractSpringBootTest} sends requests to the application
+ * under test.
+ */
+public enum Transport {
+    /** Requests are sent over a socket to the embedded server **/
+    SOCKET,
+
+    /** Requests are dispatched in-process through MockMvc; no server is needed **/
+    MOCK_MVC;
+
+    /** System property that selects the transport for all test classes **/
+    public static final String TRANSPORT_PROPERTY = "spring.test.transport";
+
+    /**
+     * Returns the transport for the given test class. A {@link WithTransport} annotation on the
+     * class or one of its superclasses takes precedence over the {@value #TRANSPORT_PROPERTY}
+     * system property; the default is {@link #SOCKET}.
+     *
+     * @param testClass
+     *            test class
+     * @return transport for the given test class
+     */
+    public static Transport resolve(final Class<?> testClass) {
+        final WithTransport annotation = AnnotationUtils.findAnnotation(testClass, WithTransport.class);
+        if (annotation != null) {
+            return annotation.value();
+        }
+
+        final String property = System.getProperty(TRANSPORT_PROPERTY);
+        if (!StringUtils.isBlank(property)) {
+            return Transport.valueOf(property.trim().toUpperCase(Locale.ROOT));
+        }
+        return SOCKET;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.web;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-request latency of each {@link Transport}, accumulated for the lifetime of the JVM so that
+ * the transports can be compared. The {@link #summary()} is printed once, when the JVM exits.
+ */
+public final class TransportLatency {
+    private static final class Stats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator minNanos = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    }
+
+    private static final Map<Transport, Stats> STATS = new EnumMap<>(Transport.class);
+
+    private static final AtomicBoolean SHUTDOWN_HOOK = new AtomicBoolean();
+
+    static {
+        for (final Transport transport : Transport.values()) {
+            STATS.put(transport, new Stats());
+        }
+    }
+
+    public static long getCount(final Transport transport) {
+        return STATS.get(transport).count.sum();
+    }
+
+    /**
+     * Returns the mean latency of requests sent with the given transport.
+     *
+     * @param transport
+     *            transport
+     * @param unit
+     *            time unit
+     * @return mean latency in the given unit, or zero if no requests were sent
+     */
+    public static double getMean(final Transport transport, final TimeUnit unit) {
+        final Stats stats = STATS.get(transport);
+        final long count = stats.count.sum();
+        return count != 0 ? (double) stats.totalNanos.sum() / count / unit.toNanos(1) : 0;
+    }
+
+    public static void record(final Transport transport, final long nanos) {
+        if (!SHUTDOWN_HOOK.get() && SHUTDOWN_HOOK.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread("transport-latency-summary") {
+                @Override
+                public void run() {
+                    // log configuration may already be shut down
+                    System.out.println("Request latency by transport: " + summary());
+                }
+            });
+        }
+        final Stats stats = STATS.get(transport);
+        stats.count.increment();
+        stats.totalNanos.add(nanos);
+        stats.minNanos.accumulate(nanos);
+        stats.maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Returns a one-line summary that compares the latency of each transport that has been used.
+     *
+     * @return summary of request latency by transport
+     */
+    public static String summary() {
+        final StringBuilder buf = new StringBuilder();
+        for (final Transport transport : Transport.values()) {
+            final Stats stats = STATS.get(transport);
+            final long count = stats.count.sum();
+            if (count == 0) {
+                continue;
+            }
+            if (buf.length() != 0) {
+                buf.append("; ");
+            }
+            buf.append(transport) //
+                    .append(": requests=").append(count) //
+                    .append(", mean=").append(String.format("%.1f", getMean(transport, TimeUnit.MICROSECONDS)))
+                    .append("us") //
+                    .append(", min=").append(TimeUnit.NANOSECONDS.toMicros(stats.minNanos.get())).append("us") //
+                    .append(", max=").append(TimeUnit.NANOSECONDS.toMicros(stats.maxNanos.get())).append("us");
+        }
+
+        final double socket = getMean(Transport.SOCKET, TimeUnit.NANOSECONDS);
+        final double mockMvc = getMean(Transport.MOCK_MVC, TimeUnit.NANOSECONDS);
+        if (socket != 0 && mockMvc != 0) {
+            buf.append("; MOCK_MVC/SOCKET latency ratio=").append(String.format("%.2f", mockMvc / socket));
+        }
+        return buf.toString();
+    }
+
+    private TransportLatency() {
+        // utility class
+    }
+}
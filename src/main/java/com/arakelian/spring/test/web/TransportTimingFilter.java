@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.web;
+
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * RestAssured filter that records the end-to-end latency of each request in
+ * {@link TransportLatency}.
+ */
+public class TransportTimingFilter implements OrderedFilter {
+    private final Transport transport;
+
+    public TransportTimingFilter(final Transport transport) {
+        this.transport = transport;
+    }
+
+    @Override
+    public Response filter(
+            final FilterableRequestSpecification requestSpec,
+            final FilterableResponseSpecification responseSpec,
+            final FilterContext ctx) {
+        final long start = System.nanoTime();
+        try {
+            return ctx.next(requestSpec, responseSpec);
+        } finally {
+            TransportLatency.record(transport, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.arakelian.spring.test.annotation.ParallelMethods;
+
+/**
+ * Runs the methods of a class annotated with {@link ParallelMethods} with both runners that honor
+ * it: the methods must run at the same time, each with its own injected test instance, and class
+ * callbacks must run exactly once.
+ */
+public class ParallelMethodsTest {
+    @Configuration
+    public static class Config {
+        @Bean
+        public Service service() {
+            return new Service();
+        }
+    }
+
+    public static class Service {
+    }
+
+    /** Methods of each test class; all of them must be running before any can finish **/
+    private static final int METHODS = 3;
+
+    private static final AtomicInteger BEFORE_CLASS = new AtomicInteger();
+
+    private static final AtomicInteger AFTER_CLASS = new AtomicInteger();
+
+    /** Test instances that ran a method, by identity **/
+    private static final Set<Object> INSTANCES = Collections
+            .synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>()));
+
+    private static CyclicBarrier barrier;
+
+    private static void await(final Object instance, final Service service)
+            throws InterruptedException, BrokenBarrierException, TimeoutException {
+        assertNotNull(service);
+        INSTANCES.add(instance);
+        barrier.await(10, TimeUnit.SECONDS);
+    }
+
+    @ParallelMethods(threads = METHODS)
+    @RunWith(ParallelMethodsRunner.class)
+    @ContextConfiguration(classes = Config.class)
+    public static class RuleBased extends AbstractSpringTest {
+        @BeforeClass
+        public static void beforeClass() {
+            BEFORE_CLASS.incrementAndGet();
+        }
+
+        @AfterClass
+        public static void afterClass() {
+            AFTER_CLASS.incrementAndGet();
+        }
+
+        @Autowired
+        private Service service;
+
+        @Test
+        public void test1() throws Exception {
+            await(this, service);
+        }
+
+        @Test
+        public void test2() throws Exception {
+            await(this, service);
+        }
+
+        @Test
+        public void test3() throws Exception {
+            await(this, service);
+        }
+    }
+
+    @ParallelMethods(threads = METHODS)
+    @RunWith(RunListenerSpringJUnit4ClassRunner.class)
+    @ContextConfiguration(classes = Config.class)
+    public static class RunnerBased {
+        @BeforeClass
+        public static void beforeClass() {
+            BEFORE_CLASS.incrementAndGet();
+        }
+
+        @AfterClass
+        public static void afterClass() {
+            AFTER_CLASS.incrementAndGet();
+        }
+
+        @Autowired
+        private Service service;
+
+        @Test
+        public void test1() throws Exception {
+            await(this, service);
+        }
+
+        @Test
+        public void test2() throws Exception {
+            await(this, service);
+        }
+
+        @Test
+        public void test3() throws Exception {
+            await(this, service);
+        }
+    }
+
+    private static void assertRunsInParallel(final Class<?> testClass) {
+        BEFORE_CLASS.set(0);
+        AFTER_CLASS.set(0);
+        INSTANCES.clear();
+        barrier = new CyclicBarrier(METHODS);
+
+        final Result result = JUnitCore.runClasses(testClass);
+        assertTrue(result.getFailures().toString(), result.wasSuccessful());
+        assertEquals(METHODS, result.getRunCount());
+        assertEquals(1, BEFORE_CLASS.get());
+        assertEquals(1, AFTER_CLASS.get());
+        assertEquals(METHODS, INSTANCES.size());
+    }
+
+    @Test
+    public void testRuleBased() {
+        assertRunsInParallel(RuleBased.class);
+    }
+
+    @Test
+    public void testRunnerBased() {
+        assertRunsInParallel(RunnerBased.class);
+    }
+}
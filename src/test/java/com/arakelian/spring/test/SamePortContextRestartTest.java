@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs two contexts, one after the other, whose server listens on the same port, as with a fixed
+ * <code>server.port</code>: closing the first context must not break requests of the second.
+ */
+public class SamePortContextRestartTest {
+    /** Sets <code>local.server.port</code> to the port of the shared server **/
+    public static class PortInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+        @Override
+        public void initialize(final ConfigurableApplicationContext applicationContext) {
+            applicationContext.getEnvironment().getPropertySources().addFirst(new MapPropertySource("port",
+                    Collections.<String, Object> singletonMap("local.server.port", Integer.valueOf(getPort()))));
+        }
+    }
+
+    @Configuration
+    public static class Config {
+    }
+
+    @WebAppConfiguration
+    @ContextConfiguration(classes = Config.class, initializers = PortInitializer.class)
+    @DirtiesContext
+    public static class FirstContext extends AbstractSpringBootTest {
+        @Test
+        public void testPing() {
+            newRequest().get(buildUrl("/ping")).then().statusCode(200).body(equalTo("pong"));
+        }
+    }
+
+    @WebAppConfiguration
+    @ContextConfiguration(classes = Config.class, initializers = PortInitializer.class)
+    @DirtiesContext
+    public static class SecondContext extends FirstContext {
+    }
+
+    /** Server that stands in for the embedded server of both contexts; guarded by class **/
+    private static HttpServer server;
+
+    private static synchronized int getPort() {
+        if (server == null) {
+            try {
+                server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            } catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+            server.createContext("/ping", new HttpHandler() {
+                @Override
+                public void handle(final HttpExchange exchange) throws IOException {
+                    final byte[] body = "pong".getBytes(StandardCharsets.UTF_8);
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (final OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                }
+            });
+            server.start();
+        }
+        return server.getAddress().getPort();
+    }
+
+    @Test
+    public void testSecondContextOnSamePort() {
+        final Result result = JUnitCore.runClasses(FirstContext.class, SecondContext.class);
+        assertTrue(result.getFailures().toString(), result.wasSuccessful());
+    }
+}
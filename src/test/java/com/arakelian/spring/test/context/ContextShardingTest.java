@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+
+public class ContextShardingTest {
+    @ContextConfiguration(classes = ConfigA.class)
+    public static class A1 {
+    }
+
+    @ContextConfiguration(classes = ConfigA.class)
+    public static class A2 {
+    }
+
+    @ContextConfiguration(classes = ConfigB.class)
+    public static class B1 {
+    }
+
+    @ContextConfiguration(classes = ConfigC.class)
+    public static class C1 {
+    }
+
+    @Configuration
+    public static class ConfigA {
+    }
+
+    @Configuration
+    public static class ConfigB {
+    }
+
+    @Configuration
+    public static class ConfigC {
+    }
+
+    private static final List<Class<?>> CLASSES = Collections
+            .unmodifiableList(Arrays.<Class<?>> asList(A1.class, A2.class, B1.class, C1.class));
+
+    private static Map<String, Long> millis(final Object... classAndMillis) {
+        final Map<String, Long> millis = new HashMap<>();
+        for (int i = 0; i < classAndMillis.length; i += 2) {
+            final Class<?> testClass = (Class<?>) classAndMillis[i];
+            millis.put(testClass.getName(), Long.valueOf(((Number) classAndMillis[i + 1]).longValue()));
+        }
+        return millis;
+    }
+
+    @Test
+    public void testBalancedByTimings() {
+        final ContextSharding sharding = new ContextSharding(CLASSES, 2,
+                millis(A1.class, 1000, A2.class, 1000, B1.class, 1500, C1.class, 500));
+        assertEquals(Arrays.asList(A1.class, A2.class), sharding.getShard(0));
+        assertEquals(Arrays.asList(B1.class, C1.class), sharding.getShard(1));
+        assertEquals(2000, sharding.getEstimatedMillis(0));
+        assertEquals(2000, sharding.getEstimatedMillis(1));
+        assertEquals(1, sharding.getShardContexts(0));
+        assertEquals(2, sharding.getShardContexts(1));
+    }
+
+    @Test
+    public void testDeterministic() {
+        final Map<String, Long> timings = millis(A1.class, 700, B1.class, 700);
+        final ContextSharding expected = new ContextSharding(CLASSES, 3, timings);
+        final List<Class<?>> shuffled = new ArrayList<>(CLASSES);
+        for (int seed = 0; seed < 10; seed++) {
+            Collections.shuffle(shuffled, new Random(seed));
+            final ContextSharding actual = new ContextSharding(shuffled, 3, timings);
+            for (int i = 0; i < 3; i++) {
+                assertEquals(expected.getShard(i), actual.getShard(i));
+                assertEquals(expected.getEstimatedMillis(i), actual.getEstimatedMillis(i));
+            }
+        }
+    }
+
+    @Test
+    public void testEveryClassAssignedOnce() {
+        final ContextSharding sharding = new ContextSharding(CLASSES, 2, millis());
+        final List<Class<?>> assigned = new ArrayList<>();
+        for (int i = 0; i < sharding.getShardCount(); i++) {
+            for (final Class<?> testClass : sharding.getShard(i)) {
+                assertEquals(i, sharding.getShardOf(testClass));
+                assigned.add(testClass);
+            }
+        }
+        assertEquals(CLASSES.size(), assigned.size());
+        assertTrue(assigned.containsAll(CLASSES));
+        assertEquals(sharding.getShardOf(A1.class), sharding.getShardOf(A2.class));
+        assertEquals(-1, sharding.getShardOf(ContextShardingTest.class));
+    }
+
+    @Test
+    public void testMoreShardsThanContexts() {
+        final ContextSharding sharding = new ContextSharding(CLASSES, 5, millis());
+        int empty = 0;
+        for (int i = 0; i < sharding.getShardCount(); i++) {
+            if (sharding.getShard(i).isEmpty()) {
+                assertEquals(0, sharding.getEstimatedMillis(i));
+                empty++;
+            }
+        }
+        assertEquals(2, empty);
+    }
+
+    @Test
+    public void testNoTimingsWithoutProperty() {
+        final String previous = System.clearProperty(ContextSharding.TIMINGS_PROPERTY);
+        try {
+            assertTrue(ContextSharding.readTimings().isEmpty());
+        } finally {
+            if (previous != null) {
+                System.setProperty(ContextSharding.TIMINGS_PROPERTY, previous);
+            }
+        }
+    }
+
+    @Test
+    public void testUnknownDurationsUseMean() {
+        final ContextSharding sharding = new ContextSharding(CLASSES, 1, millis(A1.class, 100, B1.class, 300));
+        assertEquals(100 + 200 + 300 + 200, sharding.getEstimatedMillis(0));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runners.MethodSorters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
+import org.springframework.context.annotation.ScopedProxyMode;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.arakelian.spring.test.AbstractSpringTest;
+import com.arakelian.spring.test.annotation.RefreshBeans;
+
+public class RefreshBeansTest {
+    public static class Counter {
+        private int count;
+    }
+
+    public static class CounterHolder {
+        @Autowired
+        private Counter counter;
+    }
+
+    public static class ScopedValue {
+        private int value;
+
+        public int getValue() {
+            return value;
+        }
+
+        public void setValue(final int value) {
+            this.value = value;
+        }
+    }
+
+    @Configuration
+    public static class Config {
+        @Bean
+        public Counter counter() {
+            return new Counter();
+        }
+
+        @Bean
+        public CounterHolder counterHolder() {
+            return new CounterHolder();
+        }
+
+        @Bean
+        @Scope(value = TestScope.NAME, proxyMode = ScopedProxyMode.TARGET_CLASS)
+        public ScopedValue scopedValue() {
+            return new ScopedValue();
+        }
+    }
+
+    @FixMethodOrder(MethodSorters.NAME_ASCENDING)
+    @ContextConfiguration(classes = Config.class)
+    public static class Refresh extends AbstractSpringTest {
+        /** Holder seen by the previous test method **/
+        private static CounterHolder previousHolder;
+
+        @Autowired
+        private CounterHolder holder;
+
+        @Autowired
+        private ScopedValue scopedValue;
+
+        @Test
+        @RefreshBeans(value = "counter", testScope = true)
+        public void test1Modify() {
+            holder.counter.count = 5;
+            scopedValue.setValue(7);
+            previousHolder = holder;
+        }
+
+        @Test
+        public void test2Refreshed() {
+            assertNotSame(previousHolder, holder);
+            assertEquals(0, holder.counter.count);
+            assertEquals(0, scopedValue.getValue());
+            holder.counter.count = 3;
+            scopedValue.setValue(4);
+            previousHolder = holder;
+        }
+
+        @Test
+        public void test3NotRefreshed() {
+            assertSame(previousHolder, holder);
+            assertEquals(3, holder.counter.count);
+            assertEquals(4, scopedValue.getValue());
+        }
+    }
+
+    @Test
+    public void testRefresh() {
+        final int reloadsAvoided = RefreshBeansTestExecutionListener.getReloadsAvoided();
+        final Result result = JUnitCore.runClasses(Refresh.class);
+        assertTrue(result.getFailures().toString(), result.wasSuccessful());
+        assertEquals(3, result.getRunCount());
+        assertEquals(reloadsAvoided + 1, RefreshBeansTestExecutionListener.getReloadsAvoided());
+    }
+}
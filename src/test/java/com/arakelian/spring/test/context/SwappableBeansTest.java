@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.context;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runners.MethodSorters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.arakelian.spring.test.AbstractSpringTest;
+import com.arakelian.spring.test.annotation.RefreshBeans;
+import com.arakelian.spring.test.annotation.SwappableBeans;
+
+public class SwappableBeansTest {
+    public interface Counter {
+        int next();
+    }
+
+    public static class CounterImpl implements Counter {
+        private int count;
+
+        @Override
+        public int next() {
+            return ++count;
+        }
+    }
+
+    public static class CounterHolder {
+        @Autowired
+        private Counter counter;
+    }
+
+    @Configuration
+    public static class CounterConfig {
+        @Bean
+        public Counter counter() {
+            return new CounterImpl();
+        }
+
+        @Bean
+        public CounterHolder counterHolder() {
+            return new CounterHolder();
+        }
+    }
+
+    @FixMethodOrder(MethodSorters.NAME_ASCENDING)
+    @ContextConfiguration(classes = CounterConfig.class)
+    @SwappableBeans(Counter.class)
+    public static class SwapAndRefresh extends AbstractSpringTest {
+        @Autowired
+        private CounterHolder holder;
+
+        @Test
+        public void test1Swap() {
+            assertEquals(1, holder.counter.next());
+            swapBean(Counter.class, new Counter() {
+                @Override
+                public int next() {
+                    return 42;
+                }
+            });
+            assertEquals(42, holder.counter.next());
+        }
+
+        @Test
+        @RefreshBeans("counter")
+        public void test2Reverted() {
+            assertEquals(2, holder.counter.next());
+            assertEquals(3, getOriginalBean(Counter.class).next());
+        }
+
+        @Test
+        public void test3RewrappedAfterRefresh() {
+            assertEquals(1, holder.counter.next());
+            swapBean(Counter.class, new Counter() {
+                @Override
+                public int next() {
+                    return 42;
+                }
+            });
+            assertEquals(42, holder.counter.next());
+        }
+
+        @Test
+        public void test4Reverted() {
+            assertEquals(2, holder.counter.next());
+        }
+    }
+
+    public interface Calculator {
+        int getCalls();
+
+        int square(int value);
+    }
+
+    public static class CachingCalculator implements Calculator {
+        /** Makes the calculator part of a circular reference **/
+        @Autowired
+        CalculatorClient client;
+
+        private int calls;
+
+        @Override
+        public int getCalls() {
+            return calls;
+        }
+
+        @Override
+        @Cacheable("squares")
+        public int square(final int value) {
+            calls++;
+            return value * value;
+        }
+    }
+
+    public static class CalculatorClient {
+        @Autowired
+        private Calculator calculator;
+    }
+
+    @Configuration
+    @EnableCaching
+    public static class CalculatorConfig {
+        @Bean
+        public CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+
+        @Bean
+        public Calculator calculator() {
+            return new CachingCalculator();
+        }
+
+        @Bean
+        public CalculatorClient calculatorClient() {
+            return new CalculatorClient();
+        }
+    }
+
+    @ContextConfiguration(classes = CalculatorConfig.class)
+    @SwappableBeans(Calculator.class)
+    public static class AdvisedCircularBean extends AbstractSpringTest {
+        @Autowired
+        private Calculator calculator;
+
+        @Autowired
+        private CalculatorClient client;
+
+        @Test
+        public void testAdviceAndCircularReference() {
+            assertEquals(4, calculator.square(2));
+            assertEquals(4, calculator.square(2));
+            assertEquals(1, calculator.getCalls());
+            assertSame(calculator, client.calculator);
+
+            swapBean(Calculator.class, new Calculator() {
+                @Override
+                public int getCalls() {
+                    return 0;
+                }
+
+                @Override
+                public int square(final int value) {
+                    return -1;
+                }
+            });
+            assertEquals(-1, client.calculator.square(3));
+        }
+    }
+
+    @Test
+    public void testAdvisedCircularBean() {
+        final Result result = JUnitCore.runClasses(AdvisedCircularBean.class);
+        assertTrue(result.getFailures().toString(), result.wasSuccessful());
+    }
+
+    @Test
+    public void testSwapAndRefresh() {
+        final Result result = JUnitCore.runClasses(SwapAndRefresh.class);
+        assertTrue(result.getFailures().toString(), result.wasSuccessful());
+        assertEquals(4, result.getRunCount());
+    }
+}
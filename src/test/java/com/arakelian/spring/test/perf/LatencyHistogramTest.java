@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.perf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+    /** Largest relative error of a reported value **/
+    private static final double MAX_ERROR = 1.0 / LatencyHistogram.SUB_BUCKETS;
+
+    @Test
+    public void testBucketBounds() {
+        final Random random = new Random(0);
+        for (int i = 0; i < 100000; i++) {
+            final long value = random.nextLong() >>> 1 + random.nextInt(63);
+            final int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.lowestValueAt(index) <= value);
+            if (value < Long.MAX_VALUE >>> 1) {
+                assertTrue(value < LatencyHistogram.lowestValueAt(index + 1));
+            }
+        }
+        assertEquals(LatencyHistogram.indexOf(Long.MAX_VALUE), LatencyHistogram.indexOf(Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    public void testEmpty() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMin(TimeUnit.NANOSECONDS));
+        assertEquals(0, histogram.getMax(TimeUnit.NANOSECONDS));
+        assertEquals(0, histogram.getMean(TimeUnit.NANOSECONDS), 0);
+        assertEquals(0, histogram.getPercentile(99, TimeUnit.NANOSECONDS), 0);
+    }
+
+    @Test
+    public void testFormatPercentile() {
+        assertEquals("50", LatencyHistogram.formatPercentile(50));
+        assertEquals("99", LatencyHistogram.formatPercentile(99.0));
+        assertEquals("99.9", LatencyHistogram.formatPercentile(99.9));
+        assertEquals("99.99", LatencyHistogram.formatPercentile(99.99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile() {
+        new LatencyHistogram().getPercentile(100.1, TimeUnit.NANOSECONDS);
+    }
+
+    @Test
+    public void testMerge() {
+        final LatencyHistogram lhs = new LatencyHistogram();
+        final LatencyHistogram rhs = new LatencyHistogram();
+        for (int i = 1; i <= 50; i++) {
+            lhs.record(TimeUnit.MILLISECONDS.toNanos(i));
+            rhs.record(TimeUnit.MILLISECONDS.toNanos(50 + i));
+        }
+        lhs.add(rhs);
+        assertEquals(100, lhs.getCount());
+        assertEquals(1, lhs.getMin(TimeUnit.MILLISECONDS));
+        assertEquals(100, lhs.getMax(TimeUnit.MILLISECONDS));
+        assertEquals(50.5, lhs.getMean(TimeUnit.MILLISECONDS), 1e-9);
+        assertEquals(90, lhs.getPercentile(90, TimeUnit.MILLISECONDS), 90 * MAX_ERROR);
+    }
+
+    @Test
+    public void testPercentilesWithinBounds() {
+        final Random random = new Random(1);
+        final long[] values = new long[10000];
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < values.length; i++) {
+            // log-uniform between 1us and 1s
+            values[i] = (long) Math.pow(10, 3 + 6 * random.nextDouble());
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        double previous = 0;
+        for (final double percentile : new double[] { 0, 1, 25, 50, 75, 90, 99, 99.9, 99.99, 100 }) {
+            final double actual = histogram.getPercentile(percentile, TimeUnit.NANOSECONDS);
+            final int rank = Math.max(1, (int) Math.ceil(percentile / 100 * values.length));
+            final long expected = values[rank - 1];
+            assertEquals("p" + percentile, expected, actual, expected * MAX_ERROR);
+            assertTrue(actual >= values[0] && actual <= values[values.length - 1]);
+            assertTrue(actual >= previous);
+            previous = actual;
+        }
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < LatencyHistogram.SUB_BUCKETS; i++) {
+            histogram.record(i);
+        }
+        histogram.record(-5);
+        assertEquals(LatencyHistogram.SUB_BUCKETS + 1, histogram.getCount());
+        assertEquals(0, histogram.getMin(TimeUnit.NANOSECONDS));
+        assertEquals(0, histogram.getPercentile(0, TimeUnit.NANOSECONDS), 0);
+        assertEquals(15, histogram.getPercentile(50, TimeUnit.NANOSECONDS), 0);
+        assertEquals(LatencyHistogram.SUB_BUCKETS - 1, histogram.getPercentile(100, TimeUnit.NANOSECONDS), 0);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50, TimeUnit.NANOSECONDS), 0);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class JsonPathTest {
+    private static void assertField(final JsonPath.Segment segment, final String name) {
+        assertEquals(name, segment.name);
+        assertEquals(-1, segment.index);
+    }
+
+    private static void assertIndex(final JsonPath.Segment segment, final int index) {
+        assertNull(segment.name);
+        assertEquals(index, segment.index);
+    }
+
+    private static void assertUnsupported(final String path) {
+        try {
+            JsonPath.compile(path);
+            fail("Expected " + path + " to be rejected");
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBracketSelectors() {
+        final List<JsonPath.Segment> segments = JsonPath.compile("$['a.b'][\"c\"][ 2 ][*]").getSegments();
+        assertEquals(4, segments.size());
+        assertField(segments.get(0), "a.b");
+        assertField(segments.get(1), "c");
+        assertIndex(segments.get(2), 2);
+        assertTrue(segments.get(3).isWildcard());
+    }
+
+    @Test
+    public void testDottedNames() {
+        final List<JsonPath.Segment> segments = JsonPath.compile("$.items[0].id").getSegments();
+        assertEquals(3, segments.size());
+        assertField(segments.get(0), "items");
+        assertIndex(segments.get(1), 0);
+        assertField(segments.get(2), "id");
+    }
+
+    @Test
+    public void testRoot() {
+        final JsonPath path = JsonPath.compile("$");
+        assertTrue(path.getSegments().isEmpty());
+        assertEquals("$", path.toString());
+    }
+
+    @Test
+    public void testUnsupported() {
+        assertUnsupported(null);
+        assertUnsupported("");
+        assertUnsupported("items");
+        assertUnsupported("$items");
+        assertUnsupported("$.");
+        assertUnsupported("$..id");
+        assertUnsupported("$[");
+        assertUnsupported("$[0");
+        assertUnsupported("$[-1]");
+        assertUnsupported("$[1:2]");
+        assertUnsupported("$[?(@.id)]");
+        assertUnsupported("$['a]");
+    }
+
+    @Test
+    public void testWildcards() {
+        final List<JsonPath.Segment> segments = JsonPath.compile("$.*.id[*]").getSegments();
+        assertEquals(3, segments.size());
+        assertTrue(segments.get(0).isWildcard());
+        assertField(segments.get(1), "id");
+        assertTrue(segments.get(2).isWildcard());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.arakelian.spring.test.web;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonParseException;
+
+public class JsonStreamScannerTest {
+    private static void assertScan(
+            final String json,
+            final String[] paths,
+            final long[] expectedCounts,
+            final String[] expectedValues) throws IOException {
+        final List<JsonPath> compiled = new ArrayList<>();
+        for (final String path : paths) {
+            compiled.add(JsonPath.compile(path));
+        }
+        final long[] counts = new long[paths.length];
+        final String[] values = new String[paths.length];
+        JsonStreamScanner.scan(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), compiled, counts,
+                values);
+        assertArrayEquals(expectedCounts, counts);
+        assertArrayEquals(expectedValues, values);
+    }
+
+    @Test
+    public void testArrays() throws IOException {
+        assertScan(
+                "{\"items\":[{\"id\":1},{\"id\":2,\"tags\":[\"a\",\"b\"]},{\"name\":\"x\"}]}",
+                new String[] { "$.items", "$.items[*]", "$.items[*].id", "$.items[1].id", "$.items[1].tags[1]",
+                        "$.items[3]" },
+                new long[] { 1, 3, 2, 1, 1, 0 },
+                new String[] { null, null, "1", "2", "b", null });
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testMalformed() throws IOException {
+        assertScan("{\"id\":", new String[] { "$.id" }, new long[] { 0 }, new String[] { null });
+    }
+
+    @Test
+    public void testNamesDoNotMatchIndexes() throws IOException {
+        assertScan(
+                "{\"0\":\"field\",\"list\":[\"element\"]}",
+                new String[] { "$[0]", "$['0']", "$.list.0", "$.list[0]" },
+                new long[] { 0, 1, 0, 1 },
+                new String[] { null, "field", null, "element" });
+    }
+
+    @Test
+    public void testNewlineDelimited() throws IOException {
+        assertScan(
+                "{\"id\":1,\"ok\":true}\n{\"id\":2,\"ok\":null}\n{\"nested\":{\"id\":3}}\n",
+                new String[] { "$", "$.id", "$.ok", "$.*.id" },
+                new long[] { 3, 2, 2, 1 },
+                new String[] { null, "1", "true", "3" });
+    }
+
+    @Test
+    public void testRoot() throws IOException {
+        assertScan("[1,2,3]", new String[] { "$", "$[*]", "$[2]" }, new long[] { 1, 3, 1 },
+                new String[] { null, "1", "3" });
+        assertScan("\"text\"", new String[] { "$", "$.text" }, new long[] { 1, 0 }, new String[] { "text", null });
+        assertScan("", new String[] { "$" }, new long[] { 0 }, new String[] { null });
+    }
+}